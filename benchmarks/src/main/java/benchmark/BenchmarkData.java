@@ -0,0 +1,36 @@
+package benchmark;
+import model.product.Mobile;
+import model.product.Product;
+import model.product.ScratchCard;
+
+/**
+ * Builds product fixtures shared by the benchmarks
+ */
+final class BenchmarkData {
+    static final int UNLIMITED_STOCK = Integer.MAX_VALUE / 2;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Creates a catalog mixing shippable and digital products
+     * 
+     * @param count          Number of products to create
+     * @param shippableRatio Fraction of products that are shippable (Mobile),
+     *                       the rest are digital (ScratchCard)
+     * @param stock          Units in stock for every product
+     * @return The products, with shippable ones spread evenly through the array
+     */
+    static Product[] products(int count, double shippableRatio, int stock) {
+        Product[] products = new Product[count];
+        int shippablePercent = (int) Math.round(shippableRatio * 100);
+        for (int i = 0; i < count; i++) {
+            if (i % 100 < shippablePercent) {
+                products[i] = new Mobile("Mobile " + i, 100.0 + i % 50, stock, 0.3);
+            } else {
+                products[i] = new ScratchCard("Scratch Card " + i, 10.0 + i % 50, stock);
+            }
+        }
+        return products;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package benchmark;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once per thread count, with the GC profiler attached so
+ * every result also reports its allocation rate (gc.alloc.rate.norm is bytes
+ * allocated per operation).
+ * 
+ * Usage: {@code java -jar benchmarks/target/benchmarks.jar [include-regex] [thread-counts]},
+ * e.g. {@code java -jar benchmarks.jar CheckoutBenchmark 1,4,16}
+ */
+public class BenchmarkRunner {
+    private static final String DEFAULT_THREAD_COUNTS = "1,4,16";
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        String threadCounts = args.length > 1 ? args[1] : DEFAULT_THREAD_COUNTS;
+
+        for (String threads : threadCounts.split(",")) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(Integer.parseInt(threads.trim()))
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package benchmark;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.order.ShoppingCart;
+import model.product.Product;
+import model.shipping.Shippable;
+import model.shipping.Shipment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cart hot paths: building a cart line by line and reading its totals
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmark {
+    @Param({ "10", "1000", "10000" })
+    int cartSize;
+
+    @Param({ "1", "100" })
+    int unitsPerLine;
+
+    @Param({ "0.0", "0.5", "1.0" })
+    double shippableRatio;
+
+    private Product[] products;
+    private ShoppingCart cart;
+
+    @Setup
+    public void setUp() {
+        products = BenchmarkData.products(cartSize, shippableRatio, BenchmarkData.UNLIMITED_STOCK);
+        cart = fillCart();
+    }
+
+    @Benchmark
+    public ShoppingCart addProduct() {
+        return fillCart();
+    }
+
+    @Benchmark
+    public double calculateSubtotal() {
+        return cart.calculateSubtotal();
+    }
+
+    @Benchmark
+    public List<Shippable> getShippableItems() {
+        return cart.getShippableItems();
+    }
+
+    @Benchmark
+    public Shipment getShipment() {
+        return cart.getShipment();
+    }
+
+    private ShoppingCart fillCart() {
+        ShoppingCart filled = new ShoppingCart();
+        for (Product product : products) {
+            filled.addProduct(product, unitsPerLine);
+        }
+        return filled;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,93 @@
+package benchmark;
+import java.util.concurrent.TimeUnit;
+import model.customer.Customer;
+import model.order.ShoppingCart;
+import model.product.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.CheckoutService;
+import service.ShippingService;
+
+/**
+ * Full checkout of a prepared cart. All benchmark threads buy from one shared
+ * catalog, so running with more threads (see {@link BenchmarkRunner}) measures
+ * contention on the same products. Receipts go to a sink that discards them,
+ * so console output is not part of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({ "1", "10", "100" })
+        int cartSize;
+
+        @Param({ "1", "10" })
+        int unitsPerLine;
+
+        @Param({ "0.0", "0.5", "1.0" })
+        double shippableRatio;
+
+        Product[] products;
+        CheckoutService checkoutService;
+
+        // One catalog for the whole run: every product takes a slot in the
+        // shared inventory store, so rebuilding it would grow the store
+        @Setup(Level.Trial)
+        public void setUp() {
+            products = BenchmarkData.products(cartSize, shippableRatio, BenchmarkData.UNLIMITED_STOCK);
+            checkoutService = new CheckoutService(new ShippingService(document -> {
+            }), document -> {
+            });
+        }
+
+        // Top the stock back up each iteration so long runs never sell out
+        @Setup(Level.Iteration)
+        public void restock() {
+            for (Product product : products) {
+                int sold = BenchmarkData.UNLIMITED_STOCK - product.getQuantityOnHand();
+                if (sold > 0) {
+                    product.restock(sold);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Order {
+        Customer customer;
+        ShoppingCart cart = new ShoppingCart();
+
+        @Setup(Level.Iteration)
+        public void openAccount() {
+            customer = new Customer("Benchmark Customer", 1e15);
+        }
+
+        @Setup(Level.Invocation)
+        public void fillCart(Catalog catalog) {
+            cart.clear();
+            for (Product product : catalog.products) {
+                cart.addProduct(product, catalog.unitsPerLine);
+            }
+        }
+    }
+
+    @Benchmark
+    public long processCheckout(Catalog catalog, Order order) {
+        return catalog.checkoutService.tryCheckout(order.customer, order.cart);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package benchmark;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import model.order.ShoppingCart;
+import model.product.Product;
+import model.shipping.Shippable;
+import model.shipping.Shipment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.ShippingService;
+
+/**
+ * Shipping cost for the same cart, from the per-unit list and from the
+ * aggregated shipment lines
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShippingBenchmark {
+    @Param({ "10", "1000" })
+    int cartSize;
+
+    @Param({ "1", "100" })
+    int unitsPerLine;
+
+    @Param({ "0.5", "1.0" })
+    double shippableRatio;
+
+    private final ShippingService shippingService = new ShippingService(document -> {
+    });
+    private ShoppingCart cart;
+    private List<Shippable> shippableItems;
+    private Shipment shipment;
+
+    @Setup
+    public void setUp() {
+        cart = new ShoppingCart();
+        for (Product product : BenchmarkData.products(cartSize, shippableRatio, BenchmarkData.UNLIMITED_STOCK)) {
+            cart.addProduct(product, unitsPerLine);
+        }
+        shippableItems = cart.getShippableItems();
+        shipment = cart.getShipment();
+    }
+
+    @Benchmark
+    public double calculateShippingCostPerUnit() {
+        return shippingService.calculateShippingCost(shippableItems);
+    }
+
+    @Benchmark
+    public double calculateShippingCostShipment() {
+        return shippingService.calculateShippingCost(shipment);
+    }
+
+    @Benchmark
+    public double calculateShippingCostFromCart() {
+        return shippingService.calculateShippingCost(cart.getShipment());
+    }
+}
\ No newline at end of file
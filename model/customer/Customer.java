@@ -1,7 +1,15 @@
 package model.customer;
+import java.util.concurrent.atomic.AtomicLong;
+import model.payment.Account;
+import model.payment.Money;
+
 public class Customer {
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong();
+
+    private final long id;
     private String name;
-    private double balance;
+    private final Account account;
+    private final String shippingAddress; // Null when unknown
 
     /**
      * Constructor for customer
@@ -10,14 +18,44 @@ public class Customer {
      * @param balance Initial balance (must be non-negative)
      */
     public Customer(String name, double balance) {
+        this(name, balance, null);
+    }
+
+    /**
+     * Constructor for customer with a shipping address
+     * 
+     * @param name            Customer name
+     * @param balance         Initial balance (must be non-negative)
+     * @param shippingAddress Where orders are shipped, or null if unknown
+     */
+    public Customer(String name, double balance, String shippingAddress) {
+        this(ID_SEQUENCE.incrementAndGet(), name, balance, shippingAddress);
+    }
+
+    /**
+     * Constructor for a customer with a stable id, e.g. the account number,
+     * so that the customer can be recognized again after a restart
+     * 
+     * @param id              Customer id (must be positive)
+     * @param name            Customer name
+     * @param balance         Initial balance (must be non-negative)
+     * @param shippingAddress Where orders are shipped, or null if unknown
+     */
+    public Customer(long id, String name, double balance, String shippingAddress) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Customer id must be positive");
+        }
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Customer name cannot be null or empty");
         }
         if (balance < 0) {
             throw new IllegalArgumentException("Balance cannot be negative");
         }
+        ID_SEQUENCE.accumulateAndGet(id, Math::max); // Generated ids never collide with this one
+        this.id = id;
         this.name = name;
-        this.balance = balance;
+        this.account = new Account(Money.toMinorUnits(balance));
+        this.shippingAddress = shippingAddress;
     }
 
     /**
@@ -27,7 +65,7 @@ public class Customer {
      * @return true if customer has sufficient balance
      */
     public boolean hasSufficientBalance(double amount) {
-        return balance >= amount;
+        return account.getBalance() >= Money.toMinorUnits(amount);
     }
 
     /**
@@ -37,23 +75,44 @@ public class Customer {
      * @throws IllegalArgumentException if amount is greater than balance
      */
     public void deductBalance(double amount) {
-        if (amount > balance) {
+        if (!account.tryDebit(Money.toMinorUnits(amount))) {
             throw new IllegalArgumentException("Insufficient balance");
         }
-        balance -= amount;
     }
 
     // Getters
+    /**
+     * Gets the customer id, unique within the process
+     * 
+     * @return The customer id
+     */
+    public long getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
 
+    public String getShippingAddress() {
+        return shippingAddress;
+    }
+
     public double getBalance() {
-        return balance;
+        return Money.toMajorUnits(account.getBalance());
+    }
+
+    /**
+     * Gets the balance ledger, which debits atomically in minor units
+     * 
+     * @return The customer's account
+     */
+    public Account getAccount() {
+        return account;
     }
 
     @Override
     public String toString() {
-        return String.format("Customer: %s (Balance: %.2f)", name, balance);
+        return String.format("Customer: %s (Balance: %.2f)", name, getBalance());
     }
 }
\ No newline at end of file
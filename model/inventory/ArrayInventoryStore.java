@@ -0,0 +1,151 @@
+package model.inventory;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Inventory store keeping each field in its own primitive array
+ * (struct-of-arrays), so a scan over one field reads contiguous memory.
+ * 
+ * The arrays are split into fixed-size chunks that are never copied or moved.
+ * Growing the store only adds chunks, so a compare-and-set on a stock word
+ * can never be lost to a concurrent resize.
+ */
+public class ArrayInventoryStore implements InventoryStore {
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle DOUBLES = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // Slots per chunk
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile Chunk[] chunks = new Chunk[0];
+    private volatile int size;
+    private final FreeSlots freeSlots = new FreeSlots(); // Guarded by this
+
+    @Override
+    public synchronized int allocate(long productId) {
+        if (!freeSlots.isEmpty()) {
+            int slot = freeSlots.pop();
+            chunk(slot).productIds[slot & CHUNK_MASK] = productId;
+            return slot;
+        }
+        int slot = size;
+        if (slot == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Inventory store is full");
+        }
+        if ((slot >>> CHUNK_SHIFT) == chunks.length) {
+            Chunk[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = new Chunk();
+            chunks = grown;
+        }
+        chunk(slot).productIds[slot & CHUNK_MASK] = productId;
+        size = slot + 1; // Volatile write publishes the initialized slot
+        return slot;
+    }
+
+    @Override
+    public synchronized boolean free(int slot, long productId) {
+        if (productId == NO_PRODUCT || slot < 0 || slot >= size || getProductId(slot) != productId) {
+            return false;
+        }
+        Chunk chunk = chunk(slot);
+        int index = slot & CHUNK_MASK;
+        chunk.productIds[index] = NO_PRODUCT;
+        setStock(slot, 0);
+        setPrice(slot, 0);
+        chunk.weights[index] = 0;
+        chunk.expiryDays[index] = NEVER_EXPIRES;
+        freeSlots.push(slot);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getProductId(int slot) {
+        return chunk(slot).productIds[slot & CHUNK_MASK];
+    }
+
+    @Override
+    public long getStock(int slot) {
+        return (long) LONGS.getVolatile(chunk(slot).stock, slot & CHUNK_MASK);
+    }
+
+    @Override
+    public void setStock(int slot, long stock) {
+        LONGS.setVolatile(chunk(slot).stock, slot & CHUNK_MASK, stock);
+    }
+
+    @Override
+    public boolean compareAndSetStock(int slot, long expected, long stock) {
+        return LONGS.compareAndSet(chunk(slot).stock, slot & CHUNK_MASK, expected, stock);
+    }
+
+    @Override
+    public long getPriceVersion(int slot) {
+        return (long) LONGS.getVolatile(chunk(slot).priceVersions, slot & CHUNK_MASK);
+    }
+
+    @Override
+    public void setPriceVersion(int slot, long version) {
+        LONGS.setVolatile(chunk(slot).priceVersions, slot & CHUNK_MASK, version);
+    }
+
+    @Override
+    public boolean compareAndSetPriceVersion(int slot, long expected, long version) {
+        return LONGS.compareAndSet(chunk(slot).priceVersions, slot & CHUNK_MASK, expected, version);
+    }
+
+    @Override
+    public double getPrice(int slot) {
+        return (double) DOUBLES.getVolatile(chunk(slot).prices, slot & CHUNK_MASK);
+    }
+
+    @Override
+    public void setPrice(int slot, double price) {
+        DOUBLES.setVolatile(chunk(slot).prices, slot & CHUNK_MASK, price);
+    }
+
+    @Override
+    public double getWeight(int slot) {
+        return chunk(slot).weights[slot & CHUNK_MASK];
+    }
+
+    @Override
+    public void setWeight(int slot, double weight) {
+        chunk(slot).weights[slot & CHUNK_MASK] = weight;
+    }
+
+    @Override
+    public long getExpiryDay(int slot) {
+        return chunk(slot).expiryDays[slot & CHUNK_MASK];
+    }
+
+    @Override
+    public void setExpiryDay(int slot, long epochDay) {
+        chunk(slot).expiryDays[slot & CHUNK_MASK] = epochDay;
+    }
+
+    private Chunk chunk(int slot) {
+        return chunks[slot >>> CHUNK_SHIFT];
+    }
+
+    /**
+     * One block of slots, one array per field
+     */
+    private static final class Chunk {
+        final long[] productIds = new long[CHUNK_SIZE];
+        final long[] stock = new long[CHUNK_SIZE];
+        final long[] priceVersions = new long[CHUNK_SIZE];
+        final double[] prices = new double[CHUNK_SIZE];
+        final double[] weights = new double[CHUNK_SIZE];
+        final long[] expiryDays = new long[CHUNK_SIZE];
+
+        Chunk() {
+            Arrays.fill(expiryDays, NEVER_EXPIRES);
+        }
+    }
+}
\ No newline at end of file
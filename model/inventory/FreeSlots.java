@@ -0,0 +1,26 @@
+package model.inventory;
+import java.util.Arrays;
+
+/**
+ * Stack of freed slots waiting to be reused, most recently freed first.
+ * Not thread-safe; stores use it under their allocation lock.
+ */
+final class FreeSlots {
+    private int[] slots = new int[16];
+    private int count;
+
+    boolean isEmpty() {
+        return count == 0;
+    }
+
+    void push(int slot) {
+        if (count == slots.length) {
+            slots = Arrays.copyOf(slots, count * 2);
+        }
+        slots[count++] = slot;
+    }
+
+    int pop() {
+        return slots[--count];
+    }
+}
\ No newline at end of file
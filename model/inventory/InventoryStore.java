@@ -0,0 +1,154 @@
+package model.inventory;
+import java.util.stream.IntStream;
+
+/**
+ * Storage for the mutable numbers of every product: packed stock, price,
+ * weight and expiration day. Each product owns one slot, numbered densely
+ * from zero in allocation order, so bulk jobs can scan or update all
+ * products as plain index ranges instead of walking object graphs.
+ * 
+ * A freed slot is reset, marked with {@link #NO_PRODUCT} and handed out
+ * again by a later allocation; scans skip it meanwhile.
+ * 
+ * Implementations must be safe for concurrent use: the stock word and price
+ * version are read with volatile semantics and updated by compare-and-set,
+ * the price is read and written with volatile semantics, and the other fields
+ * are written once when a product is created.
+ */
+public interface InventoryStore {
+    /** Expiration day of products that never expire */
+    long NEVER_EXPIRES = Long.MAX_VALUE;
+
+    /** Product id of a free slot; real product ids are positive */
+    long NO_PRODUCT = 0;
+
+    /**
+     * Gets the store that products are created in. Set the system property
+     * {@code ecommerce.inventory} to {@code offheap} at startup to keep it
+     * outside the Java heap.
+     * 
+     * @return The process-wide store
+     */
+    static InventoryStore shared() {
+        return SharedInventory.STORE;
+    }
+
+    /**
+     * Allocates a slot, reusing a freed one if there is any. Its stock is
+     * zero, its weight zero and its expiration day {@link #NEVER_EXPIRES}.
+     * 
+     * @param productId The id of the product that owns the slot
+     * @return The new slot
+     */
+    int allocate(long productId);
+
+    /**
+     * Frees a slot for reuse and resets it to the state of a new slot
+     * 
+     * @param slot      The slot
+     * @param productId The id of the product that owns the slot
+     * @return true if the slot was freed, false if that product does not own it
+     *         (e.g. it was already freed)
+     */
+    boolean free(int slot, long productId);
+
+    /**
+     * Gets the number of slots ever allocated; valid slots are 0 to size - 1,
+     * some of which may be free
+     * 
+     * @return The slot count
+     */
+    int size();
+
+    long getProductId(int slot);
+
+    /**
+     * Reads the packed stock word, see {@link Stock}
+     * 
+     * @param slot The slot
+     * @return The packed stock
+     */
+    long getStock(int slot);
+
+    void setStock(int slot, long stock);
+
+    /**
+     * Atomically replaces the packed stock word if it still holds the expected value
+     * 
+     * @param slot     The slot
+     * @param expected The value last read
+     * @param stock    The new value
+     * @return true if the value was replaced
+     */
+    boolean compareAndSetStock(int slot, long expected, long stock);
+
+    /**
+     * Reads the price version: even while the price is stable, odd while a
+     * reprice is being written. Readers that need the price together with the
+     * stock compare the version before and after reading both.
+     * 
+     * @param slot The slot
+     * @return The price version
+     */
+    long getPriceVersion(int slot);
+
+    void setPriceVersion(int slot, long version);
+
+    boolean compareAndSetPriceVersion(int slot, long expected, long version);
+
+    double getPrice(int slot);
+
+    void setPrice(int slot, double price);
+
+    double getWeight(int slot);
+
+    void setWeight(int slot, double weight);
+
+    long getExpiryDay(int slot);
+
+    void setExpiryDay(int slot, long epochDay);
+
+    /**
+     * Streams every slot, including free ones; call {@code parallel()} on the result to
+     * split the range across the common pool
+     * 
+     * @return The slots in ascending order
+     */
+    default IntStream slots() {
+        return IntStream.range(0, size());
+    }
+
+    /**
+     * Finds the products with fewer units free for sale than a threshold
+     * 
+     * @param threshold The minimum healthy number of units
+     * @return The ids of the low-stock products, in slot order
+     */
+    default long[] findLowStock(int threshold) {
+        return slots().parallel()
+                .filter(slot -> Stock.available(getStock(slot)) < threshold && getProductId(slot) != NO_PRODUCT)
+                .mapToLong(this::getProductId)
+                .toArray();
+    }
+
+    /**
+     * Counts the units free for sale across all products
+     * 
+     * @return The total available units
+     */
+    default long totalAvailableUnits() {
+        return slots().parallel().mapToLong(slot -> Stock.available(getStock(slot))).sum();
+    }
+
+    /**
+     * Values the stock on hand (free and reserved units) at current prices
+     * 
+     * @return The total stock value
+     */
+    default double totalStockValue() {
+        return slots().parallel().mapToDouble(slot -> {
+            long stock = getStock(slot);
+            return getPrice(slot) * ((long) Stock.available(stock) + Stock.reserved(stock));
+        }).sum();
+    }
+}
\ No newline at end of file
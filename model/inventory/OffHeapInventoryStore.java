@@ -0,0 +1,169 @@
+package model.inventory;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Inventory store keeping every slot's record outside the Java heap, in
+ * direct byte buffers, so very large catalogs add almost nothing for the
+ * garbage collector to trace or copy.
+ * 
+ * Each slot is a fixed 48-byte record (product id, packed stock, price,
+ * weight, expiration day, price version). Records are grouped into chunks of
+ * {@value #CHUNK_SIZE} slots, each in its own 8-byte aligned buffer; like
+ * {@link ArrayInventoryStore}, chunks are never moved once allocated. The
+ * stock word, price and price version are accessed atomically through byte
+ * buffer view {@link VarHandle}s.
+ */
+public class OffHeapInventoryStore implements InventoryStore {
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle DOUBLES =
+            MethodHandles.byteBufferViewVarHandle(double[].class, ByteOrder.nativeOrder());
+    private static final int CHUNK_SHIFT = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // Slots per chunk
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Record layout, all fields 8-byte aligned so they support atomic access
+    private static final int RECORD_BYTES = 48;
+    private static final int PRODUCT_ID = 0;
+    private static final int STOCK = 8;
+    private static final int PRICE = 16;
+    private static final int WEIGHT = 24;
+    private static final int EXPIRY = 32;
+    private static final int PRICE_VERSION = 40;
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private volatile int size;
+    private final FreeSlots freeSlots = new FreeSlots(); // Guarded by this
+
+    @Override
+    public synchronized int allocate(long productId) {
+        if (!freeSlots.isEmpty()) {
+            int slot = freeSlots.pop();
+            chunk(slot).putLong(offset(slot) + PRODUCT_ID, productId);
+            return slot;
+        }
+        int slot = size;
+        if (slot == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Inventory store is full");
+        }
+        if ((slot >>> CHUNK_SHIFT) == chunks.length) {
+            ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = allocateChunk();
+            chunks = grown;
+        }
+        chunk(slot).putLong(offset(slot) + PRODUCT_ID, productId);
+        size = slot + 1; // Volatile write publishes the initialized slot
+        return slot;
+    }
+
+    @Override
+    public synchronized boolean free(int slot, long productId) {
+        if (productId == NO_PRODUCT || slot < 0 || slot >= size || getProductId(slot) != productId) {
+            return false;
+        }
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        chunk.putLong(offset + PRODUCT_ID, NO_PRODUCT);
+        setStock(slot, 0);
+        setPrice(slot, 0);
+        chunk.putDouble(offset + WEIGHT, 0);
+        chunk.putLong(offset + EXPIRY, NEVER_EXPIRES);
+        freeSlots.push(slot);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long getProductId(int slot) {
+        return chunk(slot).getLong(offset(slot) + PRODUCT_ID);
+    }
+
+    @Override
+    public long getStock(int slot) {
+        return (long) LONGS.getVolatile(chunk(slot), offset(slot) + STOCK);
+    }
+
+    @Override
+    public void setStock(int slot, long stock) {
+        LONGS.setVolatile(chunk(slot), offset(slot) + STOCK, stock);
+    }
+
+    @Override
+    public boolean compareAndSetStock(int slot, long expected, long stock) {
+        return LONGS.compareAndSet(chunk(slot), offset(slot) + STOCK, expected, stock);
+    }
+
+    @Override
+    public long getPriceVersion(int slot) {
+        return (long) LONGS.getVolatile(chunk(slot), offset(slot) + PRICE_VERSION);
+    }
+
+    @Override
+    public void setPriceVersion(int slot, long version) {
+        LONGS.setVolatile(chunk(slot), offset(slot) + PRICE_VERSION, version);
+    }
+
+    @Override
+    public boolean compareAndSetPriceVersion(int slot, long expected, long version) {
+        return LONGS.compareAndSet(chunk(slot), offset(slot) + PRICE_VERSION, expected, version);
+    }
+
+    @Override
+    public double getPrice(int slot) {
+        return (double) DOUBLES.getVolatile(chunk(slot), offset(slot) + PRICE);
+    }
+
+    @Override
+    public void setPrice(int slot, double price) {
+        DOUBLES.setVolatile(chunk(slot), offset(slot) + PRICE, price);
+    }
+
+    @Override
+    public double getWeight(int slot) {
+        return chunk(slot).getDouble(offset(slot) + WEIGHT);
+    }
+
+    @Override
+    public void setWeight(int slot, double weight) {
+        chunk(slot).putDouble(offset(slot) + WEIGHT, weight);
+    }
+
+    @Override
+    public long getExpiryDay(int slot) {
+        return chunk(slot).getLong(offset(slot) + EXPIRY);
+    }
+
+    @Override
+    public void setExpiryDay(int slot, long epochDay) {
+        chunk(slot).putLong(offset(slot) + EXPIRY, epochDay);
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks[slot >>> CHUNK_SHIFT];
+    }
+
+    private static int offset(int slot) {
+        return (slot & CHUNK_MASK) * RECORD_BYTES;
+    }
+
+    private static ByteBuffer allocateChunk() {
+        int bytes = CHUNK_SIZE * RECORD_BYTES;
+        // Over-allocate so the slice can start on an 8-byte boundary; the
+        // VarHandle refuses atomic access to misaligned longs
+        ByteBuffer chunk = ByteBuffer.allocateDirect(bytes + Long.BYTES)
+                .alignedSlice(Long.BYTES)
+                .order(ByteOrder.nativeOrder());
+        for (int slot = 0; slot < CHUNK_SIZE; slot++) {
+            chunk.putLong(slot * RECORD_BYTES + EXPIRY, NEVER_EXPIRES);
+        }
+        return chunk;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package model.inventory;
+
+/**
+ * Holder of the process-wide store, created on first use. The backend is
+ * chosen with the {@value #BACKEND_PROPERTY} system property: {@code array}
+ * (the default) or {@code offheap}.
+ */
+final class SharedInventory {
+    static final String BACKEND_PROPERTY = "ecommerce.inventory";
+    static final InventoryStore STORE = create(System.getProperty(BACKEND_PROPERTY, "array"));
+
+    private SharedInventory() {
+    }
+
+    private static InventoryStore create(String backend) {
+        switch (backend) {
+            case "array":
+                return new ArrayInventoryStore();
+            case "offheap":
+                return new OffHeapInventoryStore();
+            default:
+                throw new IllegalArgumentException("Unknown inventory backend: " + backend);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package model.inventory;
+
+/**
+ * Layout of the packed stock word kept for every product: units reserved by
+ * pending checkouts in the high half, units free for sale in the low half, so
+ * both always change in one compare-and-set.
+ */
+public final class Stock {
+    private Stock() {
+    }
+
+    public static long pack(int reserved, int available) {
+        return ((long) reserved << 32) | (available & 0xFFFFFFFFL);
+    }
+
+    public static int reserved(long stock) {
+        return (int) (stock >>> 32);
+    }
+
+    public static int available(long stock) {
+        return (int) stock;
+    }
+}
\ No newline at end of file
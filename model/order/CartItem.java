@@ -2,7 +2,9 @@ package model.order;
 import model.product.Product;
 public class CartItem {
     private Product product;
+    private final double unitPrice; // Price captured when the line was created
     private int quantity;
+    private StockHold hold; // Units held for this line while shopping, if holds are enabled
 
     /**
      * Constructor for cart item
@@ -11,6 +13,17 @@ public class CartItem {
      * @param quantity The quantity of the product
      */
     public CartItem(Product product, int quantity) {
+        this(product, quantity, product == null ? 0 : product.getPrice());
+    }
+
+    /**
+     * Constructor for cart item at a price quoted by the caller
+     * 
+     * @param product   The product being added to cart
+     * @param quantity  The quantity of the product
+     * @param unitPrice The unit price to charge
+     */
+    CartItem(Product product, int quantity, double unitPrice) {
         if (product == null) {
             throw new IllegalArgumentException("Product cannot be null");
         }
@@ -18,25 +31,96 @@ public class CartItem {
             throw new IllegalArgumentException("Quantity must be positive");
         }
         this.product = product;
+        this.unitPrice = unitPrice;
         this.quantity = quantity;
     }
 
+    /**
+     * Merges more units into this line in place
+     * 
+     * @param additionalQuantity The quantity to add (must be positive)
+     */
+    void addQuantity(int additionalQuantity) {
+        if (additionalQuantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        this.quantity = Math.addExact(quantity, additionalQuantity);
+    }
+
     /**
      * Calculates the total price for this cart item
      * 
-     * @return The total price (product price * quantity)
+     * @return The total price (unit price * quantity)
      */
     public double getTotalPrice() {
-        return product.getPrice() * quantity;
+        return unitPrice * quantity;
     }
 
     /**
-     * Checks if the requested quantity is available in stock
+     * Checks if the requested quantity is available in stock, or still held
+     * for this line
      * 
      * @return true if product is available for the requested quantity
      */
     public boolean isAvailable() {
-        return product.isAvailable(quantity);
+        return hasActiveHold() || product.isAvailable(quantity);
+    }
+
+    /**
+     * Checks if this line's units are still held for it
+     * 
+     * @return true if the line has a hold that has not expired
+     */
+    public boolean hasActiveHold() {
+        StockHold current = hold;
+        return current != null && current.isActive();
+    }
+
+    StockHold getHold() {
+        return hold;
+    }
+
+    void setHold(StockHold hold) {
+        this.hold = hold;
+    }
+
+    /**
+     * Sets this line's hold aside for a checkout reservation. The hold stays
+     * with the line until {@link #confirmHold()} or {@link #restoreHold()}.
+     * 
+     * @return true if the line's units were still held and are now taken
+     */
+    boolean takeHold() {
+        StockHold current = hold;
+        return current != null && current.take();
+    }
+
+    /**
+     * Hands the hold taken by {@link #takeHold()} over to the committed order
+     */
+    void confirmHold() {
+        StockHold current = hold;
+        hold = null;
+        current.confirm();
+    }
+
+    /**
+     * Makes the hold taken by {@link #takeHold()} active again after the
+     * checkout rolled back
+     */
+    void restoreHold() {
+        hold.restore();
+    }
+
+    /**
+     * Gives this line's held units back to the available stock
+     */
+    void releaseHold() {
+        StockHold current = hold;
+        hold = null;
+        if (current != null) {
+            current.release();
+        }
     }
 
     /**
@@ -55,6 +139,10 @@ public class CartItem {
         return quantity;
     }
 
+    public double getUnitPrice() {
+        return unitPrice;
+    }
+
     @Override
     public String toString() {
         return String.format("%dx %s", quantity, product.getName());
@@ -0,0 +1,23 @@
+package model.order;
+import model.product.Product;
+
+/**
+ * Receives the changes made to a {@link ShoppingCart}, so that values derived
+ * from it can be updated for the changed lines only
+ */
+public interface CartListener {
+    /**
+     * Called after a line was added, grew or was removed
+     * 
+     * @param cart    The changed cart
+     * @param product The product of the changed line
+     */
+    void lineChanged(ShoppingCart cart, Product product);
+
+    /**
+     * Called after every line was removed at once
+     * 
+     * @param cart The cleared cart
+     */
+    void cartCleared(ShoppingCart cart);
+}
\ No newline at end of file
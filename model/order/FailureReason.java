@@ -0,0 +1,28 @@
+package model.order;
+
+/**
+ * Reasons an add-to-cart or a checkout can be rejected
+ */
+public enum FailureReason {
+    INVALID_PRODUCT,
+    INVALID_QUANTITY,
+    EMPTY_CART,
+    OUT_OF_STOCK,
+    EXCEEDS_STOCK,
+    EXPIRED,
+    INSUFFICIENT_BALANCE,
+    NOT_RECORDED,
+    UNEXPECTED_ERROR;
+
+    private static final FailureReason[] VALUES = values(); // Shared copy for allocation-free lookup
+
+    /**
+     * Gets the reason with the given ordinal without copying values()
+     * 
+     * @param ordinal The ordinal of the reason
+     * @return The reason
+     */
+    static FailureReason ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
\ No newline at end of file
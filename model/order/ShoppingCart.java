@@ -1,66 +1,224 @@
 package model.order;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import model.payment.Money;
 import model.shipping.Shippable;
+import model.shipping.Shipment;
+import model.shipping.ShipmentLine;
+import model.product.PriceQuote;
 import model.product.Product;
 
 public class ShoppingCart {
-    private List<CartItem> items;
+    private Map<Product, CartItem> items; // Indexed by product, in insertion order
+    private long subtotalMinorUnits; // Running subtotal, kept in step with items
+    private double shippableWeight; // Running weight of shippable units in kg
+    private long unitCount; // Running number of units across all lines
+    private final StockHoldManager holds; // Null when adding to the cart reserves nothing
+    private long version; // Bumped on every change to the lines
+    private final List<CartListener> listeners = new ArrayList<>();
 
     /**
      * Constructor initializes empty cart
      */
     public ShoppingCart() {
-        this.items = new ArrayList<>();
+        this(null);
     }
 
     /**
-     * Adds a product to the cart with specified quantity
+     * Constructor for a cart that holds stock for its lines. Adding a product
+     * takes a time-limited hold on its units; the hold ends when it expires,
+     * the line is removed, the cart is cleared or checkout takes it over.
+     * 
+     * @param holds The manager that creates and expires the holds, or null to
+     *              hold nothing
+     */
+    public ShoppingCart(StockHoldManager holds) {
+        this.items = new LinkedHashMap<>();
+        this.holds = holds;
+    }
+
+    /**
+     * Checks whether a product can be added to the cart, without throwing
      * 
      * @param product  The product to add
      * @param quantity The quantity to add
-     * @throws IllegalArgumentException if product is not available or quantity is
-     *                                  invalid
+     * @return {@link Validation#OK}, or the packed failure; the line index
+     *         points at the existing line when the merged quantity is too high
      */
-    public void addProduct(Product product, int quantity) {
+    public long validateAdd(Product product, int quantity) {
+        return validateAdd(product, quantity, product == null ? null : product.getQuote());
+    }
+
+    /**
+     * Checks whether a product can be added to the cart against a quote taken
+     * by the caller
+     * 
+     * @param product  The product to add
+     * @param quantity The quantity to add
+     * @param quote    The product's current quote, null if product is null
+     * @return {@link Validation#OK}, or the packed failure
+     */
+    private long validateAdd(Product product, int quantity, PriceQuote quote) {
         if (product == null) {
-            throw new IllegalArgumentException("Product cannot be null");
+            return Validation.failure(FailureReason.INVALID_PRODUCT, Validation.NO_LINE);
         }
         if (quantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be positive");
+            return Validation.failure(FailureReason.INVALID_QUANTITY, Validation.NO_LINE);
         }
-        if (!product.isAvailable(quantity)) {
-            throw new IllegalArgumentException(
-                    String.format("Product \"%s\" is not available for quantity %d",
-                            product.getName(), quantity));
+        if (!quote.covers(quantity)) {
+            return Validation.failure(FailureReason.OUT_OF_STOCK, Validation.NO_LINE);
         }
         if (product.isExpired()) {
-            throw new IllegalArgumentException(
-                    String.format("Product \"%s\" is Expired and not safe to use",
-                            product.getName(), quantity));
-        }
-        // Check if product already exists in cart, if so update quantity
-        // This is enough for now as items in a cart cannot be too large in a way that
-        // affect performance
-        // If the cart scaled up later on we may use better data structure to find and
-        // update such as HashMap
-        for (CartItem item : items) {
-            if (item.getProduct().equals(product)) {
-                int newQuantity = item.getQuantity() + quantity;
-                if (!product.isAvailable(newQuantity)) {
-                    throw new IllegalArgumentException(
-                            String.format("Total quantity %d exceeds available stock for %s",
-                                    newQuantity, product.getName()));
-                }
-                // Remove old item and add new one with updated quantity
-                items.remove(item);
-                items.add(new CartItem(product, newQuantity));
-                return;
+            return Validation.failure(FailureReason.EXPIRED, Validation.NO_LINE);
+        }
+        CartItem item = items.get(product);
+        // Units already held for the line are out of the quoted stock
+        if (item != null && !quote.covers(item.getQuantity() + quantity - heldUnits(item))) {
+            return Validation.failure(FailureReason.EXCEEDS_STOCK, indexOf(product));
+        }
+        return Validation.OK;
+    }
+
+    /**
+     * Adds a product to the cart with specified quantity
+     * 
+     * @param product  The product to add
+     * @param quantity The quantity to add
+     * @throws IllegalArgumentException if product is not available or quantity is
+     *                                  invalid
+     */
+    public void addProduct(Product product, int quantity) {
+        // One quote for both the stock check and the line price, so a
+        // concurrent reprice cannot pair a new price with an old check
+        PriceQuote quote = product == null ? null : product.getQuote();
+        long result = validateAdd(product, quantity, quote);
+        if (!Validation.isOk(result)) {
+            throw new IllegalArgumentException(describeAddFailure(result, product, quantity));
+        }
+        // Merge into the existing line in place if the product is already in the cart
+        CartItem item = items.get(product);
+        StockHold hold = null;
+        if (holds != null) {
+            hold = item != null && item.getHold() != null
+                    ? holds.extend(item.getHold(), quantity)
+                    : holds.hold(product, item == null ? quantity : item.getQuantity() + quantity);
+            if (hold == null) {
+                // Another shopper took the stock since the quote
+                result = Validation.failure(item == null ? FailureReason.OUT_OF_STOCK : FailureReason.EXCEEDS_STOCK,
+                        item == null ? Validation.NO_LINE : indexOf(product));
+                throw new IllegalArgumentException(describeAddFailure(result, product, quantity));
             }
         }
+        if (item != null) {
+            item.addQuantity(quantity);
+        } else {
+            item = new CartItem(product, quantity, quote.getPrice());
+            items.put(product, item);
+        }
+        if (hold != null) {
+            item.setHold(hold);
+        }
+        updateTotals(item, quantity);
+        lineChanged(product);
+    }
+
+    /**
+     * Gets the units currently held for a line
+     * 
+     * @param item The cart line
+     * @return The held units, 0 if the line has no active hold
+     */
+    private static int heldUnits(CartItem item) {
+        StockHold hold = item.getHold();
+        return hold != null && hold.isActive() ? hold.getUnits() : 0;
+    }
+
+    /**
+     * Removes a product and all its units from the cart
+     * 
+     * @param product The product to remove
+     * @return true if the product was in the cart
+     */
+    public boolean removeProduct(Product product) {
+        CartItem item = items.remove(product);
+        if (item == null) {
+            return false;
+        }
+        item.releaseHold();
+        if (items.isEmpty()) {
+            // Start from exact zero instead of accumulating rounding drift
+            subtotalMinorUnits = 0;
+            shippableWeight = 0;
+            unitCount = 0;
+        } else {
+            updateTotals(item, -item.getQuantity());
+        }
+        lineChanged(product);
+        return true;
+    }
+
+    /**
+     * Applies a quantity change of one line to the running totals
+     * 
+     * @param item          The changed cart line
+     * @param quantityDelta The number of units added (negative when removed)
+     */
+    private void updateTotals(CartItem item, int quantityDelta) {
+        subtotalMinorUnits += Money.toMinorUnits(item.getUnitPrice()) * quantityDelta;
+        unitCount += quantityDelta;
+        if (item.getProduct() instanceof Shippable) {
+            shippableWeight += ((Shippable) item.getProduct()).getWeight() * quantityDelta;
+        }
+    }
+
+    /**
+     * Records a change to one line and tells the listeners about it
+     * 
+     * @param product The product of the changed line
+     */
+    private void lineChanged(Product product) {
+        version++;
+        for (CartListener listener : listeners) {
+            listener.lineChanged(this, product);
+        }
+    }
+
+    /**
+     * Registers a listener for changes to the cart's lines
+     * 
+     * @param listener The listener
+     */
+    public void addListener(CartListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(CartListener listener) {
+        listeners.remove(listener);
+    }
 
-        // Product not in cart, add new item
-        items.add(new CartItem(product, quantity));
+    /**
+     * Gets the cart version, which changes whenever a line is added, changed
+     * or removed; values computed from the cart stay valid while it is the same
+     * 
+     * @return The cart version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the line for a product
+     * 
+     * @param product The product to look for
+     * @return The cart line, or null if the product is not in the cart
+     */
+    public CartItem getItem(Product product) {
+        return items.get(product);
     }
 
     /**
@@ -69,9 +227,34 @@ public class ShoppingCart {
      * @return The subtotal amount
      */
     public double calculateSubtotal() {
-        return items.stream()
-                .mapToDouble(CartItem::getTotalPrice)
-                .sum();
+        return Money.toMajorUnits(subtotalMinorUnits);
+    }
+
+    /**
+     * Gets the total weight of all shippable units in the cart
+     * 
+     * @return The shippable weight in kilograms
+     */
+    public double getShippableWeight() {
+        return shippableWeight;
+    }
+
+    /**
+     * Gets the number of distinct products in the cart
+     * 
+     * @return The line count
+     */
+    public int getLineCount() {
+        return items.size();
+    }
+
+    /**
+     * Gets the total number of units across all lines
+     * 
+     * @return The unit count
+     */
+    public long getUnitCount() {
+        return unitCount;
     }
 
     /**
@@ -84,30 +267,152 @@ public class ShoppingCart {
     }
 
     /**
-     * Validates all items in the cart are still available
+     * Checks all items in the cart are still available, without throwing
      * 
-     * @throws IllegalStateException if any item is not available
+     * @return {@link Validation#OK}, or the packed failure with the index of the
+     *         first offending line
      */
-    public void validateAvailability() {
-        for (CartItem item : items) {
+    public long checkAvailability() {
+        int index = 0;
+        for (CartItem item : items.values()) {
             if (!item.isAvailable()) {
-                throw new IllegalStateException(
-                        String.format("Product \"%s\" is no longer available",
-                                item.getProduct().getName()));
+                return Validation.failure(FailureReason.OUT_OF_STOCK, index);
             }
             if (item.getProduct().isExpired()) {
-                throw new IllegalArgumentException(
-                        String.format("Product \"%s\" is Expired and not safe to use",
-                                item.getProduct().getName(), item.getProduct().getQuantity()));
+                return Validation.failure(FailureReason.EXPIRED, index);
+            }
+            index++;
+        }
+        return Validation.OK;
+    }
+
+    /**
+     * Validates all items in the cart are still available
+     * 
+     * @throws IllegalStateException    if any item is not available
+     * @throws IllegalArgumentException if any item is expired
+     */
+    public void validateAvailability() {
+        long result = checkAvailability();
+        if (Validation.reason(result) == FailureReason.EXPIRED) {
+            throw new IllegalArgumentException(describeFailure(result));
+        }
+        if (!Validation.isOk(result)) {
+            throw new IllegalStateException(describeFailure(result));
+        }
+    }
+
+    /**
+     * Formats the message for a failed {@link #validateAdd(Product, int)}
+     * 
+     * @param result   The packed failure
+     * @param product  The product that was being added
+     * @param quantity The quantity that was being added
+     * @return The human-readable message
+     */
+    public String describeAddFailure(long result, Product product, int quantity) {
+        FailureReason reason = Validation.reason(result);
+        if (reason == FailureReason.OUT_OF_STOCK) {
+            return String.format("Product \"%s\" is not available for quantity %d",
+                    product.getName(), quantity);
+        }
+        if (reason == FailureReason.EXCEEDS_STOCK) {
+            CartItem item = items.get(product);
+            int newQuantity = (item == null ? 0 : item.getQuantity()) + quantity;
+            return String.format("Total quantity %d exceeds available stock for %s",
+                    newQuantity, product.getName());
+        }
+        if (reason == FailureReason.EXPIRED) {
+            return String.format("Product \"%s\" is Expired and not safe to use", product.getName());
+        }
+        return describeFailure(result);
+    }
+
+    /**
+     * Formats the message for a failed cart or checkout validation. Line
+     * indexes refer to the cart as it was when the result was produced.
+     * 
+     * @param result The packed failure
+     * @return The human-readable message
+     */
+    public String describeFailure(long result) {
+        FailureReason reason = Validation.reason(result);
+        if (reason == null) {
+            return "OK";
+        }
+        CartItem line = lineAt(Validation.lineIndex(result));
+        switch (reason) {
+            case INVALID_PRODUCT:
+                return "Product cannot be null";
+            case INVALID_QUANTITY:
+                return "Quantity must be positive";
+            case EMPTY_CART:
+                return "Cart is empty";
+            case INSUFFICIENT_BALANCE:
+                return "Insufficient customer balance";
+            case NOT_RECORDED:
+                return "Order could not be recorded; nothing was charged";
+            case OUT_OF_STOCK:
+                if (line != null) {
+                    return String.format("Product \"%s\" is no longer available", line.getProduct().getName());
+                }
+                break;
+            case EXPIRED:
+                if (line != null) {
+                    return String.format("Product \"%s\" is Expired and not safe to use",
+                            line.getProduct().getName());
+                }
+                break;
+            default:
+                break;
+        }
+        return reason.toString();
+    }
+
+    /**
+     * Finds the position of a product's line in insertion order
+     * 
+     * @param product The product to look for
+     * @return The line index, or {@link Validation#NO_LINE} if not in the cart
+     */
+    public int indexOf(Product product) {
+        int index = 0;
+        for (Product candidate : items.keySet()) {
+            if (candidate == product) {
+                return index;
+            }
+            index++;
+        }
+        return Validation.NO_LINE;
+    }
+
+    private CartItem lineAt(int index) {
+        if (index < 0 || index >= items.size()) {
+            return null;
+        }
+        int position = 0;
+        for (CartItem item : items.values()) {
+            if (position++ == index) {
+                return item;
             }
         }
+        return null;
+    }
+
+    /**
+     * Reserves stock for every item in the cart as one all-or-nothing step
+     * 
+     * @return The reservation; check {@link StockReservation#isComplete()}
+     */
+    public StockReservation reserveStock() {
+        return StockReservation.reserve(items.values());
     }
 
     /**
      * Processes checkout by reducing product quantities
      */
     public void processCheckout() {
-        for (CartItem item : items) {
+        for (CartItem item : items.values()) {
             item.processCheckout();
         }
     }
@@ -119,7 +424,7 @@ public class ShoppingCart {
      */
     public List<Shippable> getShippableItems() {
         List<Shippable> shippableItems = new ArrayList<>();
-        for (CartItem item : items) {
+        for (CartItem item : items.values()) {
             if (item.getProduct() instanceof Shippable) {
                 // Add each unit of the product separately for shipping
                 for (int i = 0; i < item.getQuantity(); i++) {
@@ -130,19 +435,44 @@ public class ShoppingCart {
         return shippableItems;
     }
 
+    /**
+     * Gets the shippable items as one line per product with its quantity
+     * 
+     * @return The shipment for this cart
+     */
+    public Shipment getShipment() {
+        List<ShipmentLine> lines = new ArrayList<>();
+        for (CartItem item : items.values()) {
+            if (item.getProduct() instanceof Shippable) {
+                lines.add(new ShipmentLine((Shippable) item.getProduct(), item.getQuantity()));
+            }
+        }
+        return new Shipment(lines);
+    }
+
     /**
      * Gets all cart items
      * 
      * @return List of cart items
      */
     public List<CartItem> getItems() {
-        return new ArrayList<>(items); // Return defensive copy, so others cannot change this instance.
+        return new ArrayList<>(items.values()); // Return defensive copy, so others cannot change this instance.
     }
 
     /**
      * Clears all items from the cart
      */
     public void clear() {
+        for (CartItem item : items.values()) {
+            item.releaseHold(); // No-op for holds a checkout already took over
+        }
         items.clear();
+        subtotalMinorUnits = 0;
+        shippableWeight = 0;
+        unitCount = 0;
+        version++;
+        for (CartListener listener : listeners) {
+            listener.cartCleared(this);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,115 @@
+package model.order;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.product.Product;
+
+/**
+ * Units of one product held for a cart line until a deadline. The units are
+ * reserved on the product while the hold is active, so other shoppers cannot
+ * buy them.
+ * 
+ * A hold ends exactly once: claimed by a checkout (the units stay reserved
+ * and now belong to its {@link StockReservation}), released by the cart, or
+ * expired by its {@link StockHoldManager}. The transitions race on one
+ * compare-and-set, so a hold that expires while being claimed is either
+ * claimed or released, never both.
+ * 
+ * A checkout first takes a hold, which keeps the units reserved but stops the
+ * hold from expiring, and only claims it once the order is committed. If the
+ * checkout rolls back, the hold is restored and stays with its cart.
+ */
+public class StockHold {
+    private static final int ACTIVE = 0;
+    private static final int CLAIMED = 1;
+    private static final int RELEASED = 2;
+    private static final int TAKEN = 3;
+
+    private final Product product;
+    private final int units;
+    private final long deadlineNanos;
+    private final AtomicInteger state = new AtomicInteger(ACTIVE);
+    int remainingRounds; // Wheel turns left before the deadline's bucket is final; owned by the ticking thread
+
+    StockHold(Product product, int units, long deadlineNanos) {
+        this.product = product;
+        this.units = units;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Takes over the held units for a checkout
+     * 
+     * @return true if the hold was active and is now claimed
+     */
+    boolean claim() {
+        return state.compareAndSet(ACTIVE, CLAIMED);
+    }
+
+    /**
+     * Sets the held units aside for a checkout that has not settled yet. A
+     * taken hold does not expire; it is either claimed through
+     * {@link #confirm()} or made active again through {@link #restore()}.
+     * 
+     * @return true if the hold was active and is now taken
+     */
+    boolean take() {
+        return state.compareAndSet(ACTIVE, TAKEN);
+    }
+
+    /**
+     * Hands a taken hold's units over to the checkout that took it
+     */
+    void confirm() {
+        if (!state.compareAndSet(TAKEN, CLAIMED)) {
+            throw new IllegalStateException("Hold was not taken by a checkout");
+        }
+    }
+
+    /**
+     * Returns a taken hold to its cart after the checkout rolled back
+     */
+    void restore() {
+        if (!state.compareAndSet(TAKEN, ACTIVE)) {
+            throw new IllegalStateException("Hold was not taken by a checkout");
+        }
+    }
+
+    /**
+     * Gives the held units back to the available stock
+     * 
+     * @return true if the hold was active and is now released
+     */
+    boolean release() {
+        if (!state.compareAndSet(ACTIVE, RELEASED)) {
+            return false;
+        }
+        product.release(units);
+        return true;
+    }
+
+    public boolean isActive() {
+        return state.get() == ACTIVE;
+    }
+
+    /**
+     * Checks if the hold was claimed or released, so it no longer needs to be
+     * tracked for expiry
+     * 
+     * @return true if the hold has ended
+     */
+    boolean isEnded() {
+        int current = state.get();
+        return current == CLAIMED || current == RELEASED;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public int getUnits() {
+        return units;
+    }
+
+    long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+}
\ No newline at end of file
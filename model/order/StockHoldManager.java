@@ -0,0 +1,213 @@
+package model.order;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import model.product.Product;
+
+/**
+ * Creates time-limited stock holds for carts and releases them when they
+ * expire.
+ * 
+ * Deadlines are tracked on a hashed timing wheel: a ring of buckets, one per
+ * tick, where a hold goes into the bucket of its deadline tick together with
+ * the number of full turns left before it is due. New holds are queued
+ * lock-free and moved into their bucket on the next tick, and each tick only
+ * visits one bucket, so creating and expiring a hold are both O(1) no matter
+ * how many are pending. Holds that were claimed or released before their
+ * deadline are not removed eagerly; they are dropped when their bucket comes
+ * up. A hold taken by a checkout that is still in progress is kept and
+ * checked again one turn later, so it can still expire if the checkout rolls
+ * back.
+ */
+public class StockHoldManager implements AutoCloseable {
+    private static final Duration DEFAULT_TICK = Duration.ofSeconds(1);
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long ttlNanos;
+    private final long tickNanos;
+    private final int wheelMask;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+    private final List<List<StockHold>> wheel;
+    private final Queue<StockHold> incoming = new ConcurrentLinkedQueue<>();
+    private final LongAdder expiredCount = new LongAdder();
+    private long tick; // Ticks processed so far; guarded by this
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Constructor for a manager driven manually through {@link #advance()}
+     * 
+     * @param ttl       How long a hold lasts
+     * @param tick      Resolution of the wheel; holds expire up to one tick late
+     * @param wheelSize Number of buckets (rounded up to a power of two)
+     * @param nanoClock Source of monotonic time in nanoseconds
+     */
+    public StockHoldManager(Duration ttl, Duration tick, int wheelSize, LongSupplier nanoClock) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Hold duration must be positive");
+        }
+        if (tick == null || tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("Wheel size must be between 1 and 2^30");
+        }
+        if (nanoClock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        int buckets = Integer.highestOneBit(wheelSize - 1) << 1;
+        buckets = Math.max(buckets, 1);
+        this.ttlNanos = ttl.toNanos();
+        this.tickNanos = tick.toNanos();
+        this.wheelMask = buckets - 1;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+        this.wheel = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Creates a manager on the system clock that ticks itself in the background
+     * 
+     * @param ttl How long a hold lasts
+     * @return The self-ticking manager; close it to stop the ticking thread
+     */
+    public static StockHoldManager start(Duration ttl) {
+        StockHoldManager manager = new StockHoldManager(ttl, DEFAULT_TICK, DEFAULT_WHEEL_SIZE, System::nanoTime);
+        manager.ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "stock-holds");
+            thread.setDaemon(true);
+            return thread;
+        });
+        manager.ticker.scheduleAtFixedRate(manager::advance, manager.tickNanos, manager.tickNanos,
+                TimeUnit.NANOSECONDS);
+        return manager;
+    }
+
+    /**
+     * Reserves units of a product and holds them until the hold expires
+     * 
+     * @param product The product to hold
+     * @param units   The number of units to hold
+     * @return The active hold, or null if not enough units are available
+     */
+    public StockHold hold(Product product, int units) {
+        if (!product.tryReserve(units)) {
+            return null;
+        }
+        return schedule(product, units);
+    }
+
+    /**
+     * Grows a hold by more units, restarting its time limit. If the previous
+     * hold had already expired, all units are reserved anew.
+     * 
+     * @param previous   The line's current hold
+     * @param extraUnits The number of units to add
+     * @return The new hold covering all units, replacing the previous one, or
+     *         null if not enough units are available (the previous hold is
+     *         then left as it was)
+     */
+    public StockHold extend(StockHold previous, int extraUnits) {
+        Product product = previous.getProduct();
+        if (!product.tryReserve(extraUnits)) {
+            return null;
+        }
+        if (!previous.claim() && !product.tryReserve(previous.getUnits())) {
+            product.release(extraUnits);
+            return null;
+        }
+        return schedule(product, previous.getUnits() + extraUnits);
+    }
+
+    /**
+     * Expires every hold whose deadline has passed. Called by the ticking
+     * thread; call it directly on a manually driven manager.
+     */
+    public synchronized void advance() {
+        long now = nanoClock.getAsLong();
+        while (startNanos + (tick + 1) * tickNanos <= now) {
+            moveIncoming();
+            expireBucket(wheel.get((int) (tick & wheelMask)), now);
+            tick++;
+        }
+    }
+
+    /**
+     * Gets the number of holds that ran out before checkout
+     * 
+     * @return The expired hold count
+     */
+    public long getExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * Stops the ticking thread, if any. Active holds stay reserved until
+     * their carts release or claim them.
+     */
+    @Override
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    private StockHold schedule(Product product, int units) {
+        StockHold hold = new StockHold(product, units, nanoClock.getAsLong() + ttlNanos);
+        incoming.add(hold);
+        return hold;
+    }
+
+    /**
+     * Places newly created holds into the bucket of their deadline tick
+     */
+    private void moveIncoming() {
+        StockHold hold;
+        while ((hold = incoming.poll()) != null) {
+            if (hold.isEnded()) {
+                continue;
+            }
+            // Ceiling, so a hold never lands in a bucket before its deadline
+            long deadlineTick = Math.max(tick,
+                    (hold.getDeadlineNanos() - startNanos + tickNanos - 1) / tickNanos - 1);
+            hold.remainingRounds = (int) Math.min(Integer.MAX_VALUE, (deadlineTick - tick) / wheel.size());
+            wheel.get((int) (deadlineTick & wheelMask)).add(hold);
+        }
+    }
+
+    private void expireBucket(List<StockHold> bucket, long now) {
+        for (int i = bucket.size() - 1; i >= 0; i--) {
+            StockHold hold = bucket.get(i);
+            boolean done;
+            if (hold.isEnded()) {
+                done = true; // Claimed or released early; just drop it
+            } else if (hold.remainingRounds > 0) {
+                hold.remainingRounds--;
+                done = false;
+            } else if (hold.getDeadlineNanos() <= now) {
+                if (hold.release()) {
+                    expiredCount.increment();
+                }
+                done = hold.isEnded(); // A taken hold waits for its checkout to settle
+            } else {
+                done = false;
+            }
+            if (done) {
+                // Order within a bucket does not matter, so swap-remove in O(1)
+                int last = bucket.size() - 1;
+                bucket.set(i, bucket.get(last));
+                bucket.remove(last);
+            }
+        }
+    }
+}
\ No newline at end of file
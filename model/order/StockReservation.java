@@ -0,0 +1,118 @@
+package model.order;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * All-or-nothing stock reservation for the lines of a cart.
+ * 
+ * Lines are reserved in ascending product id order, so every checkout touches
+ * shared products in the same global order. Each line is a lock-free
+ * compare-and-set on its own product, so carts that share no products never
+ * contend. Lines whose units are still held for the cart take their hold
+ * instead of reserving again, and the hold is only claimed when the
+ * reservation commits. If any line cannot be reserved, or the reservation is
+ * released, the lines already reserved are released in reverse order and the
+ * holds taken are restored to the cart, so a failed checkout keeps them.
+ */
+public class StockReservation {
+    private final CartItem[] lines;
+    private final boolean[] heldLines;
+    private final int reservedCount;
+    private final CartItem failedItem;
+    private boolean settled;
+
+    private StockReservation(CartItem[] lines, boolean[] heldLines, int reservedCount, CartItem failedItem) {
+        this.lines = lines;
+        this.heldLines = heldLines;
+        this.reservedCount = reservedCount;
+        this.failedItem = failedItem;
+    }
+
+    /**
+     * Reserves stock for all given cart items, or for none of them
+     * 
+     * @param items The cart items to reserve
+     * @return The reservation, complete only if every line was reserved
+     */
+    static StockReservation reserve(Collection<CartItem> items) {
+        CartItem[] lines = items.toArray(new CartItem[0]);
+        Arrays.sort(lines, Comparator.comparingLong(item -> item.getProduct().getId()));
+
+        boolean[] heldLines = new boolean[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            heldLines[i] = lines[i].takeHold();
+            if (!heldLines[i] && !lines[i].getProduct().tryReserve(lines[i].getQuantity())) {
+                // Roll back what we took so far, newest first
+                rollBack(lines, heldLines, i);
+                StockReservation failed = new StockReservation(lines, heldLines, 0, lines[i]);
+                failed.settled = true;
+                return failed;
+            }
+        }
+        return new StockReservation(lines, heldLines, lines.length, null);
+    }
+
+    /**
+     * Checks if every line of the cart was reserved
+     * 
+     * @return true if the reservation holds stock for the whole cart
+     */
+    public boolean isComplete() {
+        return failedItem == null;
+    }
+
+    /**
+     * Gets the first line that could not be reserved
+     * 
+     * @return The failed cart item, or null if the reservation is complete
+     */
+    public CartItem getFailedItem() {
+        return failedItem;
+    }
+
+    /**
+     * Finalizes all reserved lines as sold
+     * 
+     * @throws IllegalStateException if the reservation was already settled or is
+     *                               incomplete
+     */
+    public void commit() {
+        settle();
+        for (int i = 0; i < reservedCount; i++) {
+            if (heldLines[i]) {
+                lines[i].confirmHold();
+            }
+            lines[i].getProduct().commit(lines[i].getQuantity());
+        }
+    }
+
+    /**
+     * Returns all reserved lines to the available stock, and gives the holds
+     * taken back to their cart lines
+     * 
+     * @throws IllegalStateException if the reservation was already settled or is
+     *                               incomplete
+     */
+    public void release() {
+        settle();
+        rollBack(lines, heldLines, reservedCount);
+    }
+
+    private static void rollBack(CartItem[] lines, boolean[] heldLines, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            if (heldLines[i]) {
+                lines[i].restoreHold();
+            } else {
+                lines[i].getProduct().release(lines[i].getQuantity());
+            }
+        }
+    }
+
+    private void settle() {
+        if (settled) {
+            throw new IllegalStateException("Reservation is no longer active");
+        }
+        settled = true;
+    }
+}
\ No newline at end of file
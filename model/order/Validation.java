@@ -0,0 +1,58 @@
+package model.order;
+
+/**
+ * Allocation-free validation results packed into a {@code long}.
+ * 
+ * The high half holds the {@link FailureReason} and the low half holds the
+ * index of the offending cart line, or -1 when the failure is not tied to a
+ * line. {@link #OK} means the validation passed. Messages are not built
+ * until someone asks for them, see {@link ShoppingCart#describeFailure(long)}.
+ */
+public final class Validation {
+    public static final long OK = 0L;
+    public static final int NO_LINE = -1;
+
+    private Validation() {
+    }
+
+    /**
+     * Packs a failure into a result
+     * 
+     * @param reason    The reason for the failure
+     * @param lineIndex The offending cart line, or {@link #NO_LINE}
+     * @return The packed result
+     */
+    public static long failure(FailureReason reason, int lineIndex) {
+        return ((long) (reason.ordinal() + 1) << 32) | (lineIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Checks if a result means the validation passed
+     * 
+     * @param result The packed result
+     * @return true if there was no failure
+     */
+    public static boolean isOk(long result) {
+        return result == OK;
+    }
+
+    /**
+     * Unpacks the failure reason
+     * 
+     * @param result The packed result
+     * @return The reason, or null if the validation passed
+     */
+    public static FailureReason reason(long result) {
+        return result == OK ? null : FailureReason.ofOrdinal((int) (result >>> 32) - 1);
+    }
+
+    /**
+     * Unpacks the offending line index
+     * 
+     * @param result The packed result
+     * @return The cart line index, or {@link #NO_LINE}
+     */
+    public static int lineIndex(long result) {
+        return result == OK ? NO_LINE : (int) result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package model.payment;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balance ledger for one customer, kept in fixed-point minor units.
+ * 
+ * A debit is a single compare-and-set that checks and deducts in one step,
+ * so parallel checkouts for the same customer can never overdraw it.
+ */
+public class Account {
+    private final AtomicLong balance; // Minor units
+
+    /**
+     * Constructor for account
+     * 
+     * @param initialBalance Initial balance in minor units (must be non-negative)
+     */
+    public Account(long initialBalance) {
+        if (initialBalance < 0) {
+            throw new IllegalArgumentException("Balance cannot be negative");
+        }
+        this.balance = new AtomicLong(initialBalance);
+    }
+
+    /**
+     * Atomically deducts the amount if the balance covers it
+     * 
+     * @param amount The amount to debit in minor units
+     * @return true if the amount was debited, false if the balance is too low
+     * @throws IllegalArgumentException if amount is negative
+     */
+    public boolean tryDebit(long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount cannot be negative");
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current < amount) {
+                return false;
+            }
+        } while (!balance.weakCompareAndSetVolatile(current, current - amount));
+        return true;
+    }
+
+    /**
+     * Adds the amount to the balance, e.g. to refund a failed order
+     * 
+     * @param amount The amount to credit in minor units
+     * @throws IllegalArgumentException if amount is negative
+     */
+    public void credit(long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Amount cannot be negative");
+        }
+        balance.addAndGet(amount);
+    }
+
+    /**
+     * Overwrites the balance when restoring state from a snapshot during
+     * recovery. Must not be called while checkouts are running.
+     * 
+     * @param balance The balance in minor units (must be non-negative)
+     */
+    public void restoreBalance(long balance) {
+        if (balance < 0) {
+            throw new IllegalArgumentException("Balance cannot be negative");
+        }
+        this.balance.set(balance);
+    }
+
+    /**
+     * Gets the current balance
+     * 
+     * @return The balance in minor units
+     */
+    public long getBalance() {
+        return balance.get();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package model.payment;
+
+/**
+ * Conversions between display amounts and the fixed-point minor units
+ * (cents, piasters) used to store and move money.
+ */
+public final class Money {
+    public static final int MINOR_UNITS_PER_MAJOR = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount to minor units, rounding to the nearest unit
+     * 
+     * @param amount The amount in major units
+     * @return The amount in minor units
+     * @throws IllegalArgumentException if amount is not a finite number
+     */
+    public static long toMinorUnits(double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount)) {
+            throw new IllegalArgumentException("Amount must be a finite number");
+        }
+        return Math.round(amount * MINOR_UNITS_PER_MAJOR);
+    }
+
+    /**
+     * Converts minor units back to an amount in major units
+     * 
+     * @param minorUnits The amount in minor units
+     * @return The amount in major units
+     */
+    public static double toMajorUnits(long minorUnits) {
+        return (double) minorUnits / MINOR_UNITS_PER_MAJOR;
+    }
+}
\ No newline at end of file
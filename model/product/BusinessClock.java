@@ -0,0 +1,142 @@
+package model.product;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Business calendar that caches the current day as a primitive epoch day.
+ * 
+ * Reading the day is a single volatile read, with no clock or time zone
+ * lookup and no allocation. The cached day is refreshed by {@link #tick()},
+ * which the system clock schedules for itself at every midnight (and at
+ * least once a minute, to pick up wall-clock adjustments). Manual clocks,
+ * e.g. for simulations, only change when ticked.
+ */
+public class BusinessClock {
+    private static final long MAX_TICK_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static volatile BusinessClock current;
+
+    private final Clock source;
+    private final List<LongConsumer> rolloverListeners = new CopyOnWriteArrayList<>();
+    private volatile long epochDay;
+    private volatile long nextRolloverMillis;
+
+    /**
+     * Constructor for a clock that changes only when ticked
+     * 
+     * @param source The clock the current day is read from on each tick
+     */
+    public BusinessClock(Clock source) {
+        if (source == null) {
+            throw new IllegalArgumentException("Clock source cannot be null");
+        }
+        this.source = source;
+        tick();
+    }
+
+    /**
+     * Creates a clock on the system time zone that ticks itself in the background
+     * 
+     * @return The self-refreshing clock
+     */
+    public static BusinessClock system() {
+        BusinessClock clock = new BusinessClock(Clock.systemDefaultZone());
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "business-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        clock.scheduleNextTick(ticker);
+        return clock;
+    }
+
+    /**
+     * Gets the clock used for expiry checks, creating the system clock on first use
+     * 
+     * @return The installed clock
+     */
+    public static BusinessClock current() {
+        BusinessClock clock = current;
+        if (clock == null) {
+            synchronized (BusinessClock.class) {
+                if (current == null) {
+                    current = system();
+                }
+                clock = current;
+            }
+        }
+        return clock;
+    }
+
+    /**
+     * Replaces the clock used for expiry checks
+     * 
+     * @param clock The clock to install
+     */
+    public static void install(BusinessClock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        synchronized (BusinessClock.class) {
+            current = clock;
+        }
+    }
+
+    /**
+     * Gets the cached current day
+     * 
+     * @return Days since 1970-01-01 in the clock's time zone
+     */
+    public long today() {
+        return epochDay;
+    }
+
+    /**
+     * Registers a callback that runs on the ticking thread whenever the day
+     * changes, receiving the new epoch day
+     * 
+     * @param listener The callback to run on each day rollover
+     */
+    public void addRolloverListener(LongConsumer listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        rolloverListeners.add(listener);
+    }
+
+    /**
+     * Re-reads the current day from the underlying clock and notifies the
+     * rollover listeners if it changed
+     * 
+     * @return The refreshed epoch day
+     */
+    public synchronized long tick() {
+        ZoneId zone = source.getZone();
+        LocalDate date = LocalDate.ofInstant(Instant.ofEpochMilli(source.millis()), zone);
+        long previousDay = epochDay;
+        nextRolloverMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        epochDay = date.toEpochDay();
+        if (epochDay != previousDay) {
+            for (LongConsumer listener : rolloverListeners) {
+                listener.accept(epochDay);
+            }
+        }
+        return epochDay;
+    }
+
+    private void scheduleNextTick(ScheduledExecutorService ticker) {
+        long delay = Math.max(0, Math.min(nextRolloverMillis - source.millis(), MAX_TICK_INTERVAL_MILLIS));
+        ticker.schedule(() -> {
+            tick();
+            scheduleNextTick(ticker);
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+}
\ No newline at end of file
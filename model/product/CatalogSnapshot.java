@@ -0,0 +1,256 @@
+package model.product;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import model.shipping.Shippable;
+
+/**
+ * Read-only catalog loaded from a compact binary file through a memory
+ * mapping. Opening a snapshot only maps the file and checks its header;
+ * each {@link Product} is decoded the first time it is asked for and then
+ * cached, so startup time does not grow with the size of the catalog.
+ * 
+ * File layout (big-endian):
+ * <pre>
+ * header   magic int, version int, record count int, padding int
+ * records  one fixed-size record per product, sorted by id:
+ *          id long, price double, weight double, expiration epoch day long,
+ *          name offset int, name length int, quantity int, kind byte, 3 padding bytes
+ * names    the UTF-8 product names, back to back
+ * </pre>
+ * 
+ * Products keep the ids they had when the snapshot was written, so journals
+ * and other files that refer to products by id stay valid.
+ */
+public class CatalogSnapshot {
+    private static final int MAGIC = 0x45434154; // "ECAT"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 48;
+    private static final long NO_EXPIRY = Long.MIN_VALUE;
+
+    // Field offsets inside a record
+    private static final int ID = 0;
+    private static final int PRICE = 8;
+    private static final int WEIGHT = 16;
+    private static final int EXPIRY = 24;
+    private static final int NAME_OFFSET = 32;
+    private static final int NAME_LENGTH = 36;
+    private static final int QUANTITY = 40;
+    private static final int KIND = 44;
+
+    private final MappedByteBuffer data;
+    private final int size;
+    private final int namesStart;
+    private final AtomicReferenceArray<Product> products;
+
+    private CatalogSnapshot(MappedByteBuffer data, int size) {
+        this.data = data;
+        this.size = size;
+        this.namesStart = HEADER_BYTES + size * RECORD_BYTES;
+        this.products = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Writes products to a snapshot file, replacing it atomically if it exists
+     * 
+     * @param file     The snapshot file
+     * @param products The products to write (ids must be unique)
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if a product type is not supported or
+     *                                  two products share an id
+     */
+    public static void write(Path file, Collection<? extends Product> products) throws IOException {
+        List<Product> sorted = new ArrayList<>(products);
+        sorted.sort(Comparator.comparingLong(Product::getId));
+        byte[][] names = new byte[sorted.size()][];
+        long namesBytes = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            if (i > 0 && sorted.get(i).getId() == sorted.get(i - 1).getId()) {
+                throw new IllegalArgumentException("Duplicate product id " + sorted.get(i).getId());
+            }
+            names[i] = sorted.get(i).getName().getBytes(StandardCharsets.UTF_8);
+            namesBytes += names[i].length;
+        }
+        long total = HEADER_BYTES + (long) sorted.size() * RECORD_BYTES + namesBytes;
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Catalog is too large for a single snapshot file");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) total);
+        out.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(sorted.size()).putInt(0);
+        int nameOffset = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            Product product = sorted.get(i);
+            ProductKind kind = ProductKind.of(product);
+            out.putLong(product.getId());
+            out.putDouble(product.getPrice());
+            out.putDouble(product instanceof Shippable ? ((Shippable) product).getWeight() : 0);
+            out.putLong(product instanceof ExpirableProduct
+                    ? ((ExpirableProduct) product).getExpirationEpochDay()
+                    : NO_EXPIRY);
+            out.putInt(nameOffset);
+            out.putInt(names[i].length);
+            out.putInt(product.getQuantityOnHand());
+            out.put(kind.code()).put((byte) 0).putShort((short) 0);
+            nameOffset += names[i].length;
+        }
+        for (byte[] name : names) {
+            out.put(name);
+        }
+        out.flip();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot file. Products created afterwards get ids above every id
+     * in the snapshot.
+     * 
+     * @param file The snapshot file
+     * @return The snapshot
+     * @throws IOException           if the file cannot be mapped
+     * @throws IllegalStateException if the file is not a valid snapshot
+     */
+    public static CatalogSnapshot open(Path file) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Snapshot file is too large: " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (data.capacity() < HEADER_BYTES || data.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not a catalog snapshot: " + file);
+        }
+        if (data.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported catalog snapshot version " + data.getInt(4));
+        }
+        int size = data.getInt(8);
+        if (size < 0 || HEADER_BYTES + (long) size * RECORD_BYTES > data.capacity()) {
+            throw new IllegalStateException("Truncated catalog snapshot: " + file);
+        }
+        CatalogSnapshot snapshot = new CatalogSnapshot(data, size);
+        if (size > 0) {
+            Product.reserveIdsThrough(snapshot.getId(size - 1));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets the number of products in the snapshot
+     * 
+     * @return The product count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the id of a product without creating it
+     * 
+     * @param index The position of the product, in id order
+     * @return The product id
+     */
+    public long getId(int index) {
+        return data.getLong(recordStart(index) + ID);
+    }
+
+    /**
+     * Gets a product, creating it on first access
+     * 
+     * @param index The position of the product, in id order
+     * @return The product
+     */
+    public Product get(int index) {
+        Product product = products.get(index);
+        if (product != null) {
+            return product;
+        }
+        Product created = decode(recordStart(index));
+        // Another thread may have decoded it first; everyone must share one instance
+        Product raced = products.compareAndExchange(index, null, created);
+        if (raced != null) {
+            created.retire(); // Give the loser's inventory slot back
+            return raced;
+        }
+        return created;
+    }
+
+    /**
+     * Finds a product by id, creating it on first access
+     * 
+     * @param id The product id
+     * @return The product, or null if the snapshot has no product with that id
+     */
+    public Product findById(long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = getId(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return get(mid);
+            }
+        }
+        return null;
+    }
+
+    private int recordStart(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return HEADER_BYTES + index * RECORD_BYTES;
+    }
+
+    private Product decode(int record) {
+        long id = data.getLong(record + ID);
+        double price = data.getDouble(record + PRICE);
+        double weight = data.getDouble(record + WEIGHT);
+        long expiry = data.getLong(record + EXPIRY);
+        int quantity = data.getInt(record + QUANTITY);
+        byte[] nameBytes = new byte[data.getInt(record + NAME_LENGTH)];
+        data.get(namesStart + data.getInt(record + NAME_OFFSET), nameBytes);
+        String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+        switch (ProductKind.ofCode(data.get(record + KIND))) {
+            case CHEESE:
+                return new Cheese(id, name, price, quantity, LocalDate.ofEpochDay(expiry), weight);
+            case BISCUITS:
+                return new Biscuits(id, name, price, quantity, LocalDate.ofEpochDay(expiry), weight);
+            case TV:
+                return new TV(id, name, price, quantity, weight);
+            case MOBILE:
+                return new Mobile(id, name, price, quantity, weight);
+            case SCRATCH_CARD:
+                return new ScratchCard(id, name, price, quantity);
+            default:
+                throw new IllegalStateException("Unhandled product kind");
+        }
+    }
+}
\ No newline at end of file
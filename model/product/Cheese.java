@@ -3,8 +3,6 @@ import java.time.LocalDate;
 import model.shipping.Shippable;
 
 public class Cheese extends ExpirableProduct implements Shippable {
-    private double weight; // Weight in kilograms
-
     /**
      * Constructor for Cheese product
      * 
@@ -15,11 +13,22 @@ public class Cheese extends ExpirableProduct implements Shippable {
      * @param weight         Weight in kilograms
      */
     public Cheese(String name, double price, int quantity, LocalDate expirationDate, double weight) {
-        super(name, price, quantity, expirationDate);
-        if (weight <= 0) {
-            throw new IllegalArgumentException("Weight must be positive");
-        }
-        this.weight = weight;
+        this(nextId(), name, price, quantity, expirationDate, weight);
+    }
+
+    /**
+     * Constructor for a Cheese with a stable id, or one restored with a
+     * previously assigned id
+     * 
+     * @param id             Product id
+     * @param name           Product name
+     * @param price          Product price
+     * @param quantity       Available quantity
+     * @param expirationDate Expiration date
+     * @param weight         Weight in kilograms
+     */
+    public Cheese(long id, String name, double price, int quantity, LocalDate expirationDate, double weight) {
+        super(id, name, price, quantity, expirationDate, requireWeight(weight));
     }
 
     /**
@@ -29,6 +38,6 @@ public class Cheese extends ExpirableProduct implements Shippable {
      */
     @Override
     public double getWeight() {
-        return weight;
+        return storedWeight();
     }
 }
\ No newline at end of file
@@ -2,8 +2,6 @@ package model.product;
 import java.time.LocalDate;
 
 public abstract class ExpirableProduct extends Product {
-    private LocalDate expirationDate;
-
     /**
      * Constructor for Expirable products
      * 
@@ -13,21 +11,59 @@ public abstract class ExpirableProduct extends Product {
      * @param expirationDate The date when product expires
      */
     public ExpirableProduct(String name, double price, int quantity, LocalDate expirationDate) {
-        super(name, price, quantity);
-        this.expirationDate = expirationDate;
+        this(nextId(), name, price, quantity, expirationDate);
+    }
+
+    /**
+     * Constructor for Expirable products restored with a previously assigned id
+     * 
+     * @param id             Product id
+     * @param name           Product name
+     * @param price          Product price
+     * @param quantity       Available quantity
+     * @param expirationDate The date when product expires
+     */
+    protected ExpirableProduct(long id, String name, double price, int quantity, LocalDate expirationDate) {
+        this(id, name, price, quantity, expirationDate, 0);
     }
 
     /**
-     * Checks if the product has expired by comparing with current date
+     * Constructor for shippable Expirable products
+     * 
+     * @param id             Product id
+     * @param name           Product name
+     * @param price          Product price
+     * @param quantity       Available quantity
+     * @param expirationDate The date when product expires
+     * @param weight         Weight in kilograms, already checked
+     */
+    ExpirableProduct(long id, String name, double price, int quantity, LocalDate expirationDate, double weight) {
+        super(id, name, price, quantity, weight, toEpochDay(expirationDate));
+    }
+
+    private static long toEpochDay(LocalDate expirationDate) {
+        if (expirationDate == null) {
+            throw new IllegalArgumentException("Expiration date cannot be null");
+        }
+        return expirationDate.toEpochDay();
+    }
+
+    /**
+     * Checks if the product has expired by comparing with the business clock's
+     * cached current day
      * 
      * @return true if product is expired, false otherwise
      */
     @Override
     public boolean isExpired() {
-        return LocalDate.now().isAfter(expirationDate);
+        return BusinessClock.current().today() > storedExpiryDay();
     }
 
     public LocalDate getExpirationDate() {
-        return expirationDate;
+        return LocalDate.ofEpochDay(storedExpiryDay());
+    }
+
+    public long getExpirationEpochDay() {
+        return storedExpiryDay();
     }
 }
\ No newline at end of file
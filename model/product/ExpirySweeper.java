@@ -0,0 +1,182 @@
+package model.product;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Takes expirable products out of sale as soon as their expiration day has
+ * passed, instead of waiting for a shopper to hit them.
+ * 
+ * Products are indexed by expiration day in a timing wheel: one bucket per
+ * day for the next {@value #WHEEL_DAYS} days, plus a sorted overflow map for
+ * products expiring further out that moves into the wheel as the days come
+ * into range. Advancing the day only touches the buckets of the days that
+ * passed, so the cost is proportional to the number of products that
+ * expired, not to the size of the catalog.
+ */
+public class ExpirySweeper {
+    private static final int WHEEL_DAYS = 64; // Power of two, so day & WHEEL_MASK picks the bucket
+    private static final int WHEEL_MASK = WHEEL_DAYS - 1;
+
+    private final List<List<ExpirableProduct>> wheel = new ArrayList<>(WHEEL_DAYS);
+    private final NavigableMap<Long, List<ExpirableProduct>> overflow = new TreeMap<>();
+    private final List<Consumer<List<ExpirableProduct>>> listeners = new CopyOnWriteArrayList<>();
+    private final StockJournal journal; // Null when withdrawals are not recorded
+    private long nextDay; // Earliest expiration day not swept yet; the wheel covers the next WHEEL_DAYS days
+    private int wheelCount; // Products currently in the wheel buckets
+
+    /**
+     * Constructor for a sweeper driven manually through {@link #advanceTo(long)}
+     * 
+     * @param today The current epoch day
+     */
+    public ExpirySweeper(long today) {
+        this(today, null);
+    }
+
+    /**
+     * Constructor for a sweeper driven manually that records its withdrawals
+     * 
+     * @param today   The current epoch day
+     * @param journal The journal that applies and records each withdrawal, or null
+     */
+    public ExpirySweeper(long today, StockJournal journal) {
+        this.journal = journal;
+        for (int i = 0; i < WHEEL_DAYS; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        this.nextDay = today;
+    }
+
+    /**
+     * Creates a sweeper that advances on every day rollover of the given clock
+     * 
+     * @param clock The business clock to follow
+     * @return The attached sweeper
+     */
+    public static ExpirySweeper attach(BusinessClock clock) {
+        return attach(clock, null);
+    }
+
+    /**
+     * Creates a sweeper that advances on every day rollover of the given clock
+     * and records its withdrawals
+     * 
+     * @param clock   The business clock to follow
+     * @param journal The journal that applies and records each withdrawal, or null
+     * @return The attached sweeper
+     */
+    public static ExpirySweeper attach(BusinessClock clock, StockJournal journal) {
+        ExpirySweeper sweeper = new ExpirySweeper(clock.today(), journal);
+        clock.addRolloverListener(sweeper::advanceTo);
+        return sweeper;
+    }
+
+    /**
+     * Registers a callback that receives each batch of products taken out of sale
+     * 
+     * @param listener The callback to run after each sweep that expired something
+     */
+    public void addExpiryListener(Consumer<List<ExpirableProduct>> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Indexes a product by its expiration day. A product that has already
+     * expired is taken out of sale right away.
+     * 
+     * @param product The product to watch
+     */
+    public void schedule(ExpirableProduct product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        synchronized (this) {
+            long day = product.getExpirationEpochDay();
+            if (day >= nextDay) {
+                if (day < nextDay + WHEEL_DAYS) {
+                    wheel.get(slot(day)).add(product);
+                    wheelCount++;
+                } else {
+                    overflow.computeIfAbsent(day, d -> new ArrayList<>()).add(product);
+                }
+                return;
+            }
+        }
+        withdraw(Collections.singletonList(product));
+    }
+
+    /**
+     * Takes every product whose expiration day is before the given day out of
+     * sale as one batch
+     * 
+     * @param today The new current epoch day
+     * @return The products that were taken out of sale
+     */
+    public List<ExpirableProduct> advanceTo(long today) {
+        List<ExpirableProduct> expired = new ArrayList<>();
+        synchronized (this) {
+            while (nextDay < today) {
+                if (wheelCount == 0) {
+                    // Nothing due soon: jump straight to the next day that has products
+                    long jump = overflow.isEmpty() ? today : Math.min(today, overflow.firstKey());
+                    if (jump > nextDay) {
+                        nextDay = jump;
+                        refillWheel();
+                        continue;
+                    }
+                }
+                List<ExpirableProduct> bucket = wheel.get(slot(nextDay));
+                expired.addAll(bucket);
+                wheelCount -= bucket.size();
+                bucket.clear();
+                nextDay++;
+                refillWheel();
+            }
+        }
+        if (!expired.isEmpty()) {
+            withdraw(expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Moves overflow products whose day has come within the wheel's range
+     */
+    private void refillWheel() {
+        if (overflow.isEmpty() || overflow.firstKey() >= nextDay + WHEEL_DAYS) {
+            return;
+        }
+        Map<Long, List<ExpirableProduct>> due = overflow.headMap(nextDay + WHEEL_DAYS);
+        for (Map.Entry<Long, List<ExpirableProduct>> entry : due.entrySet()) {
+            wheel.get(slot(entry.getKey())).addAll(entry.getValue());
+            wheelCount += entry.getValue().size();
+        }
+        due.clear();
+    }
+
+    private void withdraw(List<ExpirableProduct> expired) {
+        for (ExpirableProduct product : expired) {
+            if (journal != null) {
+                journal.withdrawFromSale(product);
+            } else {
+                product.withdrawFromSale();
+            }
+        }
+        for (Consumer<List<ExpirableProduct>> listener : listeners) {
+            listener.accept(Collections.unmodifiableList(expired));
+        }
+    }
+
+    private static int slot(long day) {
+        return (int) (day & WHEEL_MASK);
+    }
+}
\ No newline at end of file
@@ -2,8 +2,6 @@ package model.product;
 import model.shipping.Shippable;
 
 public class Mobile extends NonExpirableProduct implements Shippable {
-    private double weight; // Weight in kilograms
-
     /**
      * Constructor for Mobile product
      * 
@@ -13,11 +11,21 @@ public class Mobile extends NonExpirableProduct implements Shippable {
      * @param weight   Weight in kilograms
      */
     public Mobile(String name, double price, int quantity, double weight) {
-        super(name, price, quantity);
-        if (weight <= 0) {
-            throw new IllegalArgumentException("Weight must be positive");
-        }
-        this.weight = weight;
+        this(nextId(), name, price, quantity, weight);
+    }
+
+    /**
+     * Constructor for a Mobile with a stable id, or one restored with a
+     * previously assigned id
+     * 
+     * @param id       Product id
+     * @param name     Product name
+     * @param price    Product price
+     * @param quantity Available quantity
+     * @param weight   Weight in kilograms
+     */
+    public Mobile(long id, String name, double price, int quantity, double weight) {
+        super(id, name, price, quantity, requireWeight(weight));
     }
 
     /**
@@ -27,6 +35,6 @@ public class Mobile extends NonExpirableProduct implements Shippable {
      */
     @Override
     public double getWeight() {
-        return weight;
+        return storedWeight();
     }
 }
\ No newline at end of file
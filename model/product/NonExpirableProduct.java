@@ -1,4 +1,5 @@
 package model.product;
+import model.inventory.InventoryStore;
 public abstract class NonExpirableProduct extends Product {
 
     /**
@@ -12,6 +13,32 @@ public abstract class NonExpirableProduct extends Product {
         super(name, price, quantity);
     }
 
+    /**
+     * Constructor for non-expirable products restored with a previously
+     * assigned id
+     * 
+     * @param id       Product id
+     * @param name     Product name
+     * @param price    Product price
+     * @param quantity Available quantity
+     */
+    protected NonExpirableProduct(long id, String name, double price, int quantity) {
+        super(id, name, price, quantity);
+    }
+
+    /**
+     * Constructor for shippable non-expirable products
+     * 
+     * @param id       Product id
+     * @param name     Product name
+     * @param price    Product price
+     * @param quantity Available quantity
+     * @param weight   Weight in kilograms, already checked
+     */
+    NonExpirableProduct(long id, String name, double price, int quantity, double weight) {
+        super(id, name, price, quantity, weight, InventoryStore.NEVER_EXPIRES);
+    }
+
     /**
      * Non-expirable products never expire
      * 
@@ -0,0 +1,32 @@
+package model.product;
+
+/**
+ * A product's price and available quantity, read together at one instant
+ */
+public final class PriceQuote {
+    private final double price;
+    private final int quantity;
+
+    PriceQuote(double price, int quantity) {
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Checks if the quoted quantity covers a request
+     * 
+     * @param requestedQuantity The quantity customer wants to purchase
+     * @return true if enough units were available
+     */
+    public boolean covers(int requestedQuantity) {
+        return quantity >= requestedQuantity;
+    }
+}
\ No newline at end of file
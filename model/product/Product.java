@@ -1,8 +1,20 @@
 package model.product;
+import java.util.concurrent.atomic.AtomicLong;
+import model.inventory.InventoryStore;
+import model.inventory.Stock;
+
+/**
+ * Base class of everything sold. Stock, price and the subclasses' weight and
+ * expiration day live in a slot of the shared {@link InventoryStore}; a
+ * product object is a view over that slot plus its identity and name.
+ */
 public abstract class Product {
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong();
+
+    private final long id;
     private String name;
-    private double price;
-    private int quantity;
+    private final InventoryStore inventory;
+    private final int slot;
 
     /**
      * Constructor to initialize product with basic information
@@ -12,15 +24,90 @@ public abstract class Product {
      * @param quantity The available quantity (must be non-negative)
      */
     public Product(String name, double price, int quantity) {
+        this(nextId(), name, price, quantity);
+    }
+
+    /**
+     * Constructor for a product with a stable id, e.g. its SKU number, or one
+     * restored with a previously assigned id
+     * 
+     * @param id       The product id (must be positive)
+     * @param name     The product name
+     * @param price    The product price (must be positive)
+     * @param quantity The available quantity (must be non-negative)
+     */
+    protected Product(long id, String name, double price, int quantity) {
+        this(id, name, price, quantity, 0, InventoryStore.NEVER_EXPIRES);
+    }
+
+    /**
+     * Constructor for a product with every field of its inventory slot. All
+     * arguments are checked before the slot is allocated, so a rejected
+     * product leaves nothing behind in the store.
+     * 
+     * @param id        The product id (must be positive)
+     * @param name      The product name
+     * @param price     The product price (must be positive)
+     * @param quantity  The available quantity (must be non-negative)
+     * @param weight    The shipping weight in kilograms, 0 if not shippable
+     * @param expiryDay The last day the product is safe to sell, or
+     *                  {@link InventoryStore#NEVER_EXPIRES}
+     */
+    Product(long id, String name, double price, int quantity, double weight, long expiryDay) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Product id must be positive");
+        }
         if (price < 0) {
             throw new IllegalArgumentException("Price cannot be negative");
         }
         if (quantity < 0) {
             throw new IllegalArgumentException("Quantity cannot be negative");
         }
+        reserveIdsThrough(id); // Generated ids never collide with this one
+        this.id = id;
         this.name = name;
-        this.price = price;
-        this.quantity = quantity;
+        this.inventory = InventoryStore.shared();
+        this.slot = inventory.allocate(id);
+        inventory.setPrice(slot, price);
+        inventory.setWeight(slot, weight);
+        inventory.setExpiryDay(slot, expiryDay);
+        inventory.setStock(slot, Stock.pack(0, quantity));
+    }
+
+    /**
+     * Draws the id for a new product
+     * 
+     * @return The next unused id
+     */
+    static long nextId() {
+        return ID_SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * Checks a shipping weight before it is passed to the constructor
+     * 
+     * @param weight Weight in kilograms
+     * @return The weight
+     * @throws IllegalArgumentException if the weight is not positive
+     */
+    static double requireWeight(double weight) {
+        if (!(weight > 0)) {
+            throw new IllegalArgumentException("Weight must be positive");
+        }
+        return weight;
+    }
+
+    /**
+     * Frees this product's inventory slot for reuse by a later product. Only
+     * call it once the product is out of every catalog, cart and pending
+     * checkout; the product must not be used afterwards.
+     * 
+     * @throws IllegalStateException if the product was already retired
+     */
+    public void retire() {
+        if (!inventory.free(slot, id)) {
+            throw new IllegalStateException(String.format("Product \"%s\" was already retired", name));
+        }
     }
 
     /**
@@ -41,19 +128,206 @@ public abstract class Product {
      * @return true if enough quantity is available
      */
     private boolean hasEnoughQuantity(int requestedQuantity) {
-        return this.quantity >= requestedQuantity;
+        return getQuantity() >= requestedQuantity;
+    }
+
+    /**
+     * Atomically takes the requested units out of the available stock and holds
+     * them for a pending checkout. Never oversells: concurrent callers race on a
+     * single compare-and-set, so at most the available units can be reserved.
+     * 
+     * @param units The number of units to reserve
+     * @return true if the units were reserved, false if stock is insufficient
+     * @throws IllegalArgumentException if units is not positive
+     */
+    public boolean tryReserve(int units) {
+        requirePositive(units);
+        long current;
+        do {
+            current = inventory.getStock(slot);
+            if (Stock.available(current) < units) {
+                return false;
+            }
+        } while (!inventory.compareAndSetStock(slot, current,
+                Stock.pack(Stock.reserved(current) + units, Stock.available(current) - units)));
+        return true;
+    }
+
+    /**
+     * Finalizes previously reserved units as sold
+     * 
+     * @param units The number of reserved units that were sold
+     * @throws IllegalArgumentException if units is not positive
+     * @throws IllegalStateException    if fewer units are currently reserved
+     */
+    public void commit(int units) {
+        requirePositive(units);
+        takeReserved(units, false);
+    }
+
+    /**
+     * Returns previously reserved units to the available stock
+     * 
+     * @param units The number of reserved units to give back
+     * @throws IllegalArgumentException if units is not positive
+     * @throws IllegalStateException    if fewer units are currently reserved
+     */
+    public void release(int units) {
+        requirePositive(units);
+        takeReserved(units, true);
     }
 
     /**
      * Reduces the product quantity after successful purchase
      * 
      * @param soldQuantity The quantity that was sold
+     * @throws IllegalArgumentException if the quantity would drop below zero
      */
     public void reduceQuantity(int soldQuantity) {
-        if (soldQuantity > this.quantity) {
-            throw new IllegalArgumentException("Cannot reduce quantity below zero");
+        long current;
+        do {
+            current = inventory.getStock(slot);
+            if (soldQuantity > Stock.available(current)) {
+                throw new IllegalArgumentException("Cannot reduce quantity below zero");
+            }
+        } while (!inventory.compareAndSetStock(slot, current,
+                Stock.pack(Stock.reserved(current), Stock.available(current) - soldQuantity)));
+    }
+
+    /**
+     * Adds newly delivered units to the available stock. Units reserved by
+     * pending checkouts are not affected.
+     * 
+     * @param units The number of units delivered
+     * @throws IllegalArgumentException if units is not positive or the stock
+     *                                  on hand would overflow
+     */
+    public void restock(int units) {
+        requirePositive(units);
+        long current;
+        do {
+            current = inventory.getStock(slot);
+            if ((long) Stock.available(current) + Stock.reserved(current) + units > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Restock would exceed the maximum stock");
+            }
+        } while (!inventory.compareAndSetStock(slot, current,
+                Stock.pack(Stock.reserved(current), Stock.available(current) + units)));
+    }
+
+    /**
+     * Changes the price. Lines already in carts keep the price they were added
+     * at. Readers of {@link #getQuote()} see either the old or the new price,
+     * never a mix of the change with an unrelated stock read. Products listed
+     * in a {@link ProductCatalog} must be repriced through
+     * {@link ProductCatalog#reprice(Product, double)} so its price index follows.
+     * 
+     * @param price The new price (must be non-negative)
+     * @throws IllegalArgumentException if price is negative or not a number
+     */
+    public void reprice(double price) {
+        if (!(price >= 0) || Double.isInfinite(price)) {
+            throw new IllegalArgumentException("Price must be a non-negative number");
+        }
+        // Seqlock: an odd version tells quote readers a write is in progress
+        long version;
+        do {
+            version = inventory.getPriceVersion(slot);
+        } while ((version & 1) != 0 || !inventory.compareAndSetPriceVersion(slot, version, version + 1));
+        inventory.setPrice(slot, price);
+        inventory.setPriceVersion(slot, version + 2);
+    }
+
+    /**
+     * Reads the price and the available quantity as one consistent pair: the
+     * price the product had at the instant its stock was read. Stock writes
+     * need no part in this; the stock word is read between two reads of an
+     * unchanged even price version, so no reprice happened around that read.
+     * 
+     * @return The current price and available quantity
+     */
+    public PriceQuote getQuote() {
+        while (true) {
+            long version = inventory.getPriceVersion(slot);
+            if ((version & 1) == 0) {
+                double price = inventory.getPrice(slot);
+                int quantity = Stock.available(inventory.getStock(slot)); // Must stay inside the version window
+                if (inventory.getPriceVersion(slot) == version) {
+                    return new PriceQuote(price, quantity);
+                }
+            }
+            Thread.onSpinWait(); // A reprice is being written; it takes nanoseconds
+        }
+    }
+
+    /**
+     * Takes all available units out of sale at once, e.g. when the stock
+     * expires. Units already reserved by pending checkouts are not affected.
+     * 
+     * @return The number of units removed from sale
+     */
+    public int withdrawFromSale() {
+        long current;
+        do {
+            current = inventory.getStock(slot);
+        } while (!inventory.compareAndSetStock(slot, current, Stock.pack(Stock.reserved(current), 0)));
+        return Stock.available(current);
+    }
+
+    /**
+     * Overwrites the stock when restoring state from a snapshot during
+     * recovery. Must not be called while checkouts are running.
+     * 
+     * @param quantity The quantity on hand (must be non-negative)
+     */
+    public void restoreQuantity(int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        inventory.setStock(slot, Stock.pack(0, quantity));
+    }
+
+    /**
+     * Removes units from the reserved counter, optionally giving them back to
+     * the available stock
+     * 
+     * @param units           The number of reserved units to remove
+     * @param backToAvailable true to return the units to the available stock
+     * @throws IllegalStateException if fewer units are currently reserved
+     */
+    private void takeReserved(int units, boolean backToAvailable) {
+        long current;
+        do {
+            current = inventory.getStock(slot);
+            if (Stock.reserved(current) < units) {
+                throw new IllegalStateException(
+                        String.format("Only %d units of \"%s\" are reserved", Stock.reserved(current), name));
+            }
+        } while (!inventory.compareAndSetStock(slot, current, Stock.pack(Stock.reserved(current) - units,
+                backToAvailable ? Stock.available(current) + units : Stock.available(current))));
+    }
+
+    /**
+     * Makes sure products created from now on get ids above the given one, so
+     * they never collide with restored products
+     * 
+     * @param maxId The highest id already in use
+     */
+    static void reserveIdsThrough(long maxId) {
+        ID_SEQUENCE.accumulateAndGet(maxId, Math::max);
+    }
+
+    final double storedWeight() {
+        return inventory.getWeight(slot);
+    }
+
+    final long storedExpiryDay() {
+        return inventory.getExpiryDay(slot);
+    }
+
+    private static void requirePositive(int units) {
+        if (units <= 0) {
+            throw new IllegalArgumentException("Units must be positive");
         }
-        this.quantity -= soldQuantity;
     }
 
     /**
@@ -65,20 +339,55 @@ public abstract class Product {
     public abstract boolean isExpired();
 
     // Getters
+    /**
+     * Gets the unique product id, given at creation or assigned in creation
+     * order. Used as the global ordering when several products are reserved
+     * together.
+     * 
+     * @return The product id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the slot holding this product's numbers in the shared inventory store
+     * 
+     * @return The inventory slot
+     */
+    public int getInventorySlot() {
+        return slot;
+    }
+
     public String getName() {
         return name;
     }
 
     public double getPrice() {
-        return price;
+        return inventory.getPrice(slot);
     }
 
     public int getQuantity() {
-        return quantity;
+        return Stock.available(inventory.getStock(slot));
+    }
+
+    public int getReservedQuantity() {
+        return Stock.reserved(inventory.getStock(slot));
+    }
+
+    /**
+     * Gets the units on hand, i.e. free for sale plus reserved by pending
+     * checkouts, read as one consistent pair
+     * 
+     * @return The quantity on hand
+     */
+    public int getQuantityOnHand() {
+        long current = inventory.getStock(slot);
+        return Stock.available(current) + Stock.reserved(current);
     }
 
     @Override
     public String toString() {
-        return String.format("%s (Price: %.2f, Quantity: %d)", name, price, quantity);
+        return String.format("%s (Price: %.2f, Quantity: %d)", name, getPrice(), getQuantity());
     }
 }
\ No newline at end of file
@@ -0,0 +1,298 @@
+package model.product;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import model.payment.Money;
+import model.shipping.Shippable;
+
+/**
+ * The set of products on offer, indexed for lookup and browsing.
+ * 
+ * Besides the primary index by id, the catalog maintains secondary indexes
+ * on every add and remove: by name, by type (shippable or not, expirable or
+ * not), by price and by expiration date. Queries read straight from an index,
+ * so their cost depends on the size of the result rather than of the catalog.
+ * 
+ * The catalog is safe for concurrent use. Returned collections are read-only
+ * live views; a product that is being added or removed may briefly show up in
+ * some indexes and not others.
+ */
+public class ProductCatalog {
+    private final Map<Long, Product> byId = new ConcurrentHashMap<>();
+    private final Map<String, Set<Product>> byName = new ConcurrentHashMap<>();
+    private final Set<Product> shippable = ConcurrentHashMap.newKeySet();
+    private final Set<Product> nonShippable = ConcurrentHashMap.newKeySet();
+    private final Set<ExpirableProduct> expirable = ConcurrentHashMap.newKeySet();
+    private final Set<Product> nonExpirable = ConcurrentHashMap.newKeySet();
+    // Price in minor units, then id, so equal prices stay distinct and ranges are exact
+    private final NavigableMap<IndexKey, Product> byPrice = new ConcurrentSkipListMap<>();
+    private final NavigableMap<IndexKey, ExpirableProduct> byExpiry = new ConcurrentSkipListMap<>();
+    private final StockJournal journal; // Null when stock and price changes are not recorded
+
+    /**
+     * Constructor for a catalog whose changes are not recorded
+     */
+    public ProductCatalog() {
+        this(null);
+    }
+
+    /**
+     * Constructor for a catalog that records restocks and reprices
+     * 
+     * @param journal The journal that applies and records the changes, or null
+     */
+    public ProductCatalog(StockJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Adds a product to the catalog and all its indexes
+     * 
+     * @param product The product to add
+     * @throws IllegalArgumentException if product is null or a product with the
+     *                                  same id is already in the catalog
+     */
+    public void add(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        // Same monitor as reprice, so the price key indexed here is the current one
+        synchronized (product) {
+            if (byId.putIfAbsent(product.getId(), product) != null) {
+                throw new IllegalArgumentException("Product id " + product.getId() + " is already in the catalog");
+            }
+            byName.computeIfAbsent(product.getName(), name -> ConcurrentHashMap.newKeySet()).add(product);
+            if (product instanceof Shippable) {
+                shippable.add(product);
+            } else {
+                nonShippable.add(product);
+            }
+            if (product instanceof ExpirableProduct) {
+                ExpirableProduct expirableProduct = (ExpirableProduct) product;
+                expirable.add(expirableProduct);
+                byExpiry.put(expiryKey(expirableProduct), expirableProduct);
+            } else {
+                nonExpirable.add(product);
+            }
+            byPrice.put(priceKey(product), product);
+        }
+    }
+
+    /**
+     * Adds several products to the catalog
+     * 
+     * @param products The products to add
+     * @throws IllegalArgumentException if a product is null or already in the catalog
+     */
+    public void addAll(Collection<? extends Product> products) {
+        for (Product product : products) {
+            add(product);
+        }
+    }
+
+    /**
+     * Removes a product from the catalog and all its indexes
+     * 
+     * @param product The product to remove
+     * @return true if the product was in the catalog
+     */
+    public boolean remove(Product product) {
+        if (product == null) {
+            return false;
+        }
+        // Same monitor as reprice, so the price key removed here is the one indexed
+        synchronized (product) {
+            if (!byId.remove(product.getId(), product)) {
+                return false;
+            }
+            byName.computeIfPresent(product.getName(), (name, products) -> {
+                products.remove(product);
+                return products.isEmpty() ? null : products;
+            });
+            shippable.remove(product);
+            nonShippable.remove(product);
+            nonExpirable.remove(product);
+            if (product instanceof ExpirableProduct) {
+                expirable.remove(product);
+                byExpiry.remove(expiryKey((ExpirableProduct) product));
+            }
+            byPrice.remove(priceKey(product));
+        }
+        return true;
+    }
+
+    /**
+     * Adds delivered units to a product's available stock, recording the
+     * delivery if the catalog has a journal
+     * 
+     * @param product The delivered product
+     * @param units   The number of units delivered
+     * @throws IllegalArgumentException if units is not positive or the stock
+     *                                  on hand would overflow
+     */
+    public void restock(Product product, int units) {
+        if (journal != null) {
+            journal.restock(product, units);
+        } else {
+            product.restock(units);
+        }
+    }
+
+    /**
+     * Changes a product's price and moves it in the price index
+     * 
+     * @param product The product to reprice
+     * @param price   The new price (must be non-negative)
+     * @throws IllegalArgumentException if price is negative or not a number
+     */
+    public void reprice(Product product, double price) {
+        // Serialized per product so concurrent reprices cannot strand an old index key
+        synchronized (product) {
+            IndexKey oldKey = priceKey(product);
+            if (journal != null) {
+                journal.reprice(product, price);
+            } else {
+                product.reprice(price);
+            }
+            if (byId.get(product.getId()) == product && byPrice.remove(oldKey, product)) {
+                byPrice.put(priceKey(product), product);
+            }
+        }
+    }
+
+    /**
+     * Finds a product by id
+     * 
+     * @param id The product id
+     * @return The product, or null if it is not in the catalog
+     */
+    public Product findById(long id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Finds the products with exactly the given name
+     * 
+     * @param name The product name
+     * @return The matching products, empty if there are none
+     */
+    public Collection<Product> findByName(String name) {
+        Set<Product> products = byName.get(name);
+        return products == null ? List.of() : Collections.unmodifiableSet(products);
+    }
+
+    /**
+     * Finds the products priced within a range, cheapest first
+     * 
+     * @param minPrice The lowest price, inclusive
+     * @param maxPrice The highest price, inclusive
+     * @return The matching products in ascending price order
+     * @throws IllegalArgumentException if minPrice is greater than maxPrice
+     */
+    public Collection<Product> findByPriceRange(double minPrice, double maxPrice) {
+        if (minPrice > maxPrice) {
+            throw new IllegalArgumentException("Minimum price cannot exceed maximum price");
+        }
+        return Collections.unmodifiableCollection(byPrice.subMap(
+                new IndexKey(Money.toMinorUnits(minPrice), Long.MIN_VALUE), true,
+                new IndexKey(Money.toMinorUnits(maxPrice), Long.MAX_VALUE), true).values());
+    }
+
+    /**
+     * Finds the expirable products whose expiration date falls within a range,
+     * soonest first
+     * 
+     * @param from The earliest expiration date, inclusive
+     * @param to   The latest expiration date, inclusive
+     * @return The matching products in ascending expiration order
+     * @throws IllegalArgumentException if a date is null or from is after to
+     */
+    public Collection<ExpirableProduct> findExpiringBetween(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("Dates cannot be null");
+        }
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        }
+        return Collections.unmodifiableCollection(byExpiry.subMap(
+                new IndexKey(from.toEpochDay(), Long.MIN_VALUE), true,
+                new IndexKey(to.toEpochDay(), Long.MAX_VALUE), true).values());
+    }
+
+    /**
+     * Gets all products, cheapest first
+     * 
+     * @return The products in ascending price order
+     */
+    public Collection<Product> getProductsByPrice() {
+        return Collections.unmodifiableCollection(byPrice.values());
+    }
+
+    public Collection<Product> getShippableProducts() {
+        return Collections.unmodifiableSet(shippable);
+    }
+
+    public Collection<Product> getNonShippableProducts() {
+        return Collections.unmodifiableSet(nonShippable);
+    }
+
+    public Collection<ExpirableProduct> getExpirableProducts() {
+        return Collections.unmodifiableSet(expirable);
+    }
+
+    public Collection<Product> getNonExpirableProducts() {
+        return Collections.unmodifiableSet(nonExpirable);
+    }
+
+    public Collection<Product> getProducts() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private static IndexKey priceKey(Product product) {
+        return new IndexKey(Money.toMinorUnits(product.getPrice()), product.getId());
+    }
+
+    private static IndexKey expiryKey(ExpirableProduct product) {
+        return new IndexKey(product.getExpirationEpochDay(), product.getId());
+    }
+
+    /**
+     * Sort key of the ordered indexes: the indexed value, then the product id
+     * to keep products with equal values apart
+     */
+    private static final class IndexKey implements Comparable<IndexKey> {
+        final long value;
+        final long id;
+
+        IndexKey(long value, long id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(IndexKey other) {
+            int byValue = Long.compare(value, other.value);
+            return byValue != 0 ? byValue : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IndexKey && compareTo((IndexKey) other) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(value) * 31 + Long.hashCode(id);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package model.product;
+
+/**
+ * Concrete product types, as stored in a {@link CatalogSnapshot}. The code of
+ * each kind is part of the file format and must never change.
+ */
+public enum ProductKind {
+    CHEESE(1),
+    BISCUITS(2),
+    TV(3),
+    MOBILE(4),
+    SCRATCH_CARD(5);
+
+    private final byte code;
+
+    ProductKind(int code) {
+        this.code = (byte) code;
+    }
+
+    /**
+     * Gets the kind of a product
+     * 
+     * @param product The product
+     * @return The kind of the product
+     * @throws IllegalArgumentException if the product type has no kind
+     */
+    public static ProductKind of(Product product) {
+        if (product instanceof Cheese) {
+            return CHEESE;
+        }
+        if (product instanceof Biscuits) {
+            return BISCUITS;
+        }
+        if (product instanceof TV) {
+            return TV;
+        }
+        if (product instanceof Mobile) {
+            return MOBILE;
+        }
+        if (product instanceof ScratchCard) {
+            return SCRATCH_CARD;
+        }
+        throw new IllegalArgumentException("Unsupported product type: " + product.getClass().getName());
+    }
+
+    /**
+     * Gets the kind stored under a code
+     * 
+     * @param code The stored code
+     * @return The kind
+     * @throws IllegalStateException if no kind has that code
+     */
+    static ProductKind ofCode(byte code) {
+        for (ProductKind kind : values()) {
+            if (kind.code == code) {
+                return kind;
+            }
+        }
+        throw new IllegalStateException("Unknown product kind code " + code);
+    }
+
+    byte code() {
+        return code;
+    }
+}
\ No newline at end of file
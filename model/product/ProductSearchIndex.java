@@ -0,0 +1,432 @@
+package model.product;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Search index over product names, for autocomplete and multi-word search.
+ * 
+ * Names are split into lowercase tokens of letters and digits. An inverted
+ * index maps each token to the sorted ids of the products containing it. For
+ * prefix lookups the distinct tokens are also kept in a sorted array; tokens
+ * added since the last rebuild sit in a small sorted buffer that is merged
+ * into the array once it grows past {@value #MERGE_THRESHOLD} entries, so
+ * adding a product never re-sorts the whole vocabulary.
+ * 
+ * Products that are sold out or expired stay indexed but are skipped when
+ * results are collected, so stock changes need no index update. Queries keep
+ * only the best {@code limit} results in fixed-size arrays while scanning.
+ */
+public class ProductSearchIndex {
+    private static final int MERGE_THRESHOLD = 256;
+    private static final int EXACT_TOKEN_SCORE = 2;
+    private static final int PREFIX_TOKEN_SCORE = 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Product> products = new HashMap<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private String[] sortedTokens = new String[0]; // May contain tokens with no postings left
+    private final TreeSet<String> recentTokens = new TreeSet<>(); // Not in sortedTokens yet
+    private int removedTokens; // Tokens dropped from postings since the last rebuild
+
+    /**
+     * Adds a product to the index
+     * 
+     * @param product The product to add
+     * @throws IllegalArgumentException if product is null or already indexed
+     */
+    public void add(Product product) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        lock.writeLock().lock();
+        try {
+            if (products.putIfAbsent(product.getId(), product) != null) {
+                throw new IllegalArgumentException("Product id " + product.getId() + " is already indexed");
+            }
+            for (String token : tokenize(product.getName())) {
+                Postings ids = postings.get(token);
+                if (ids == null) {
+                    ids = new Postings();
+                    postings.put(token, ids);
+                    if (Arrays.binarySearch(sortedTokens, token) < 0) {
+                        recentTokens.add(token);
+                    }
+                }
+                ids.insert(product.getId());
+            }
+            if (recentTokens.size() > MERGE_THRESHOLD) {
+                rebuildTokens();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product from the index
+     * 
+     * @param product The product to remove
+     * @return true if the product was indexed
+     */
+    public boolean remove(Product product) {
+        if (product == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!products.remove(product.getId(), product)) {
+                return false;
+            }
+            for (String token : tokenize(product.getName())) {
+                Postings ids = postings.get(token);
+                ids.delete(product.getId());
+                if (ids.size == 0) {
+                    postings.remove(token);
+                    if (!recentTokens.remove(token)) {
+                        removedTokens++;
+                    }
+                }
+            }
+            if (removedTokens > MERGE_THRESHOLD) {
+                rebuildTokens();
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds products with a name token starting with the given prefix, for
+     * autocomplete. Whole-token matches rank above partial ones, then older
+     * products (lower ids) first.
+     * 
+     * @param prefix The text typed so far
+     * @param limit  The maximum number of results
+     * @return The best available matches, best first
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public List<Product> autocomplete(String prefix, int limit) {
+        requireValidLimit(limit);
+        List<String> tokens = tokenize(prefix);
+        if (tokens.isEmpty() || limit == 0) {
+            return List.of();
+        }
+        String stem = tokens.get(tokens.size() - 1); // Complete the word being typed
+        lock.readLock().lock();
+        try {
+            TopResults top = new TopResults(limit);
+            int start = Arrays.binarySearch(sortedTokens, stem);
+            for (int i = start >= 0 ? start : -start - 1; i < sortedTokens.length
+                    && sortedTokens[i].startsWith(stem); i++) {
+                collectPrefixMatches(sortedTokens[i], stem, top);
+            }
+            for (String token : recentTokens.tailSet(stem, true)) {
+                if (!token.startsWith(stem)) {
+                    break;
+                }
+                collectPrefixMatches(token, stem, top);
+            }
+            return top.toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds products whose names contain any of the words of a query. Products
+     * matching more words rank higher, then older products (lower ids) first.
+     * 
+     * @param query The search words
+     * @param limit The maximum number of results
+     * @return The best available matches, best first
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public List<Product> search(String query, int limit) {
+        requireValidLimit(limit);
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit == 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                Postings ids = postings.get(token);
+                if (ids != null) {
+                    lists.add(ids);
+                }
+            }
+
+            // Merge the sorted postings; each id comes out once with the
+            // number of query words it matched
+            TopResults top = new TopResults(limit);
+            int[] cursors = new int[lists.size()];
+            while (true) {
+                long next = Long.MAX_VALUE;
+                for (int i = 0; i < cursors.length; i++) {
+                    if (cursors[i] < lists.get(i).size) {
+                        next = Math.min(next, lists.get(i).ids[cursors[i]]);
+                    }
+                }
+                if (next == Long.MAX_VALUE) {
+                    break;
+                }
+                int matches = 0;
+                for (int i = 0; i < cursors.length; i++) {
+                    if (cursors[i] < lists.get(i).size && lists.get(i).ids[cursors[i]] == next) {
+                        cursors[i]++;
+                        matches++;
+                    }
+                }
+                top.offer(next, matches);
+            }
+            return top.toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collectPrefixMatches(String token, String stem, TopResults top) {
+        Postings ids = postings.get(token);
+        if (ids == null) {
+            return; // Removed since the sorted array was rebuilt
+        }
+        int score = token.length() == stem.length() ? EXACT_TOKEN_SCORE : PREFIX_TOKEN_SCORE;
+        for (int i = 0; i < ids.size; i++) {
+            // Ids ascend, so once one cannot make the cut, the rest cannot either
+            if (!top.canAccept(ids.ids[i], score)) {
+                return;
+            }
+            top.offerUnique(ids.ids[i], score);
+        }
+    }
+
+    /**
+     * Merges the recent tokens into the sorted array and drops tokens that no
+     * longer have any products
+     */
+    private void rebuildTokens() {
+        String[] merged = new String[postings.size()];
+        int count = 0;
+        int i = 0;
+        for (String recent : recentTokens) {
+            while (i < sortedTokens.length && sortedTokens[i].compareTo(recent) < 0) {
+                if (postings.containsKey(sortedTokens[i])) {
+                    merged[count++] = sortedTokens[i];
+                }
+                i++;
+            }
+            merged[count++] = recent;
+        }
+        for (; i < sortedTokens.length; i++) {
+            if (postings.containsKey(sortedTokens[i])) {
+                merged[count++] = sortedTokens[i];
+            }
+        }
+        sortedTokens = count == merged.length ? merged : Arrays.copyOf(merged, count);
+        recentTokens.clear();
+        removedTokens = 0;
+    }
+
+    /**
+     * Splits text into distinct lowercase tokens of letters and digits
+     */
+    private static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    private static void requireValidLimit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+    }
+
+    /**
+     * Sorted, growable array of product ids
+     */
+    private static final class Postings {
+        long[] ids = new long[4];
+        int size;
+
+        void insert(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1));
+            }
+            System.arraycopy(ids, at, ids, at + 1, size - at);
+            ids[at] = id;
+            size++;
+        }
+
+        void delete(long id) {
+            int at = Arrays.binarySearch(ids, 0, size, id);
+            if (at >= 0) {
+                System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * The best available products seen so far, kept in a fixed-size heap with
+     * the worst result at the root
+     */
+    private final class TopResults {
+        private final long[] ids;
+        private final int[] scores;
+        private int size;
+
+        TopResults(int limit) {
+            ids = new long[limit];
+            scores = new int[limit];
+        }
+
+        boolean isFull() {
+            return size == ids.length;
+        }
+
+        /**
+         * Checks whether a product with this score would rank among the results
+         */
+        boolean canAccept(long id, int score) {
+            return !isFull() || isWorse(ids[0], scores[0], id, score);
+        }
+
+        /**
+         * Offers a product that may already be in the results
+         * 
+         * @return true if the product is now in the results
+         */
+        boolean offerUnique(long id, int score) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    if (score > scores[i]) {
+                        scores[i] = score;
+                        siftDown(i); // It got better, so it moves away from the root
+                    }
+                    return true;
+                }
+            }
+            return offer(id, score);
+        }
+
+        /**
+         * Offers a product that is not in the results yet
+         * 
+         * @return true if the product was added
+         */
+        boolean offer(long id, int score) {
+            if (!canAccept(id, score)) {
+                return false;
+            }
+            // Only candidates that would make the cut pay for the stock check
+            Product product = products.get(id);
+            if (product.getQuantity() == 0 || product.isExpired()) {
+                return false;
+            }
+            if (isFull()) {
+                ids[0] = id;
+                scores[0] = score;
+                siftDown(0);
+            } else {
+                ids[size] = id;
+                scores[size] = score;
+                siftUp(size++);
+            }
+            return true;
+        }
+
+        List<Product> toList() {
+            Product[] result = new Product[size];
+            // Popping the worst each time fills the array from the back
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = products.get(ids[0]);
+                size--;
+                ids[0] = ids[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return Collections.unmodifiableList(Arrays.asList(result));
+        }
+
+        private void siftUp(int at) {
+            while (at > 0) {
+                int parent = (at - 1) >>> 1;
+                if (!isWorse(ids[at], scores[at], ids[parent], scores[parent])) {
+                    return;
+                }
+                swap(at, parent);
+                at = parent;
+            }
+        }
+
+        private void siftDown(int at) {
+            while (true) {
+                int worst = at;
+                int left = 2 * at + 1;
+                int right = left + 1;
+                if (left < size && isWorse(ids[left], scores[left], ids[worst], scores[worst])) {
+                    worst = left;
+                }
+                if (right < size && isWorse(ids[right], scores[right], ids[worst], scores[worst])) {
+                    worst = right;
+                }
+                if (worst == at) {
+                    return;
+                }
+                swap(at, worst);
+                at = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            int score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+
+        private boolean isWorse(long id, int score, long otherId, int otherScore) {
+            return score < otherScore || (score == otherScore && id > otherId);
+        }
+    }
+}
\ No newline at end of file
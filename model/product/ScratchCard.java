@@ -12,6 +12,19 @@ public class ScratchCard extends NonExpirableProduct {
         super(name, price, quantity);
     }
 
+    /**
+     * Constructor for a ScratchCard with a stable id, or one restored with a
+     * previously assigned id
+     * 
+     * @param id       Product id
+     * @param name     Product name
+     * @param price    Product price
+     * @param quantity Available quantity
+     */
+    public ScratchCard(long id, String name, double price, int quantity) {
+        super(id, name, price, quantity);
+    }
+
     // ScratchCard doesn't implement Shippable as it's a digital product
     // that doesn't require physical shipping
 }
\ No newline at end of file
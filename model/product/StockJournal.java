@@ -0,0 +1,38 @@
+package model.product;
+
+/**
+ * Durable record of the stock and price changes made outside checkouts, so
+ * that recovery after a restart replays them along with the orders.
+ * Implementations apply each change to the product themselves, which keeps
+ * the recorded order of changes consistent with the order of checkouts.
+ */
+public interface StockJournal {
+    /**
+     * Records a delivery, then adds its units to the available stock
+     * 
+     * @param product The delivered product
+     * @param units   The number of units delivered
+     * @throws IllegalArgumentException if units is not positive or the stock
+     *                                  on hand would overflow
+     */
+    void restock(Product product, int units);
+
+    /**
+     * Takes all available units of a product out of sale and records how many
+     * 
+     * @param product The product to withdraw
+     * @return The number of units removed from sale
+     */
+    int withdrawFromSale(Product product);
+
+    /**
+     * Changes the price of a product and records the new price. Callers that
+     * lock the product's monitor must not already be inside the journal's own
+     * locks, since implementations may take that monitor first.
+     * 
+     * @param product The product to reprice
+     * @param price   The new price (must be non-negative)
+     * @throws IllegalArgumentException if price is negative or not a number
+     */
+    void reprice(Product product, double price);
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package model.promotion;
+import java.util.Map;
+import model.order.CartItem;
+import model.order.ShoppingCart;
+import model.payment.Money;
+import model.product.Product;
+
+/**
+ * Sells a fixed set of products together at a bundle price. On its own,
+ * every complete set in the cart is discounted by its regular price minus the
+ * bundle price; the checkout's {@code PromotionEngine} instead prices bundles
+ * against line-discounted prices and lets each unit count toward one bundle
+ * only.
+ */
+public class BundlePromotion extends Promotion {
+    private final Product[] products;
+    private final int[] quantities; // Units of each product in one bundle
+    private final long bundlePrice; // In minor units
+
+    /**
+     * Constructor for a bundle price
+     * 
+     * @param name        The promotion name
+     * @param components  The products in one bundle, with their units
+     * @param bundlePrice The price of one bundle
+     */
+    public BundlePromotion(String name, Map<Product, Integer> components, double bundlePrice) {
+        super(name);
+        if (components == null || components.isEmpty()) {
+            throw new IllegalArgumentException("Bundle must contain products");
+        }
+        if (!(bundlePrice >= 0)) {
+            throw new IllegalArgumentException("Bundle price cannot be negative");
+        }
+        products = new Product[components.size()];
+        quantities = new int[components.size()];
+        int index = 0;
+        for (Map.Entry<Product, Integer> component : components.entrySet()) {
+            if (component.getKey() == null || component.getValue() == null || component.getValue() <= 0) {
+                throw new IllegalArgumentException("Bundle products need a positive quantity");
+            }
+            products[index] = component.getKey();
+            quantities[index] = component.getValue();
+            index++;
+        }
+        this.bundlePrice = Money.toMinorUnits(bundlePrice);
+    }
+
+    /**
+     * Calculates the discount on the complete bundles in a cart, at the
+     * lines' unit prices
+     * 
+     * @param cart The cart
+     * @return The discount in minor units, 0 if the cart holds no complete bundle
+     */
+    public long discount(ShoppingCart cart) {
+        long bundles = Long.MAX_VALUE;
+        long regularPrice = 0;
+        for (int i = 0; i < products.length; i++) {
+            CartItem item = cart.getItem(products[i]);
+            if (item == null || item.getQuantity() < quantities[i]) {
+                return 0;
+            }
+            bundles = Math.min(bundles, item.getQuantity() / quantities[i]);
+            regularPrice += Money.toMinorUnits(item.getUnitPrice()) * quantities[i];
+        }
+        return bundles * Math.max(0, regularPrice - bundlePrice);
+    }
+
+    /**
+     * Gets the number of products in one bundle
+     * 
+     * @return The component count
+     */
+    public int getComponentCount() {
+        return products.length;
+    }
+
+    public Product getProduct(int component) {
+        return products[component];
+    }
+
+    public int getQuantity(int component) {
+        return quantities[component];
+    }
+
+    /**
+     * Gets the bundle price
+     * 
+     * @return The price of one bundle in minor units
+     */
+    public long getBundlePrice() {
+        return bundlePrice;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package model.promotion;
+import model.product.Product;
+
+/**
+ * Buy N, get M free: of every N + M units on a line, M are free
+ */
+public class BuyGetPromotion extends LinePromotion {
+    private final int buy;
+    private final int free;
+
+    /**
+     * Constructor for buy N, get M free on one product
+     * 
+     * @param name    The promotion name
+     * @param product The discounted product
+     * @param buy     The units paid for in each group
+     * @param free    The free units in each group
+     */
+    public BuyGetPromotion(String name, Product product, int buy, int free) {
+        super(name, product);
+        requireCounts(buy, free);
+        this.buy = buy;
+        this.free = free;
+    }
+
+    /**
+     * Constructor for buy N, get M free on a product type, counted per line
+     * 
+     * @param name         The promotion name
+     * @param productClass The discounted product class or interface
+     * @param buy          The units paid for in each group
+     * @param free         The free units in each group
+     */
+    public BuyGetPromotion(String name, Class<?> productClass, int buy, int free) {
+        super(name, productClass);
+        requireCounts(buy, free);
+        this.buy = buy;
+        this.free = free;
+    }
+
+    private static void requireCounts(int buy, int free) {
+        if (buy <= 0 || free <= 0) {
+            throw new IllegalArgumentException("Bought and free units must be positive");
+        }
+    }
+
+    @Override
+    public long discount(long unitPrice, int quantity) {
+        long freeUnits = (long) (quantity / (buy + free)) * free;
+        return freeUnits * unitPrice;
+    }
+
+    public int getBuy() {
+        return buy;
+    }
+
+    public int getFree() {
+        return free;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,32 @@
+package model.promotion;
+import model.payment.Money;
+
+/**
+ * Waives shipping for orders whose discounted subtotal reaches a threshold
+ */
+public class FreeShippingPromotion extends Promotion {
+    private final long threshold; // In minor units
+
+    /**
+     * Constructor for free shipping over a threshold
+     * 
+     * @param name      The promotion name
+     * @param threshold The lowest subtotal that ships free
+     */
+    public FreeShippingPromotion(String name, double threshold) {
+        super(name);
+        if (!(threshold >= 0)) {
+            throw new IllegalArgumentException("Threshold cannot be negative");
+        }
+        this.threshold = Money.toMinorUnits(threshold);
+    }
+
+    /**
+     * Gets the threshold
+     * 
+     * @return The lowest subtotal that ships free, in minor units
+     */
+    public long getThreshold() {
+        return threshold;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package model.promotion;
+import model.product.Product;
+
+/**
+ * A promotion whose discount on a cart line depends on that line alone. It
+ * targets either one product or every product of a class (or implementing an
+ * interface such as {@code Shippable}).
+ */
+public abstract class LinePromotion extends Promotion {
+    private final Product product; // Null when the promotion targets a product class
+    private final Class<?> productClass; // Null when the promotion targets one product
+
+    /**
+     * Constructor for a promotion on one product
+     * 
+     * @param name    The promotion name
+     * @param product The discounted product
+     */
+    protected LinePromotion(String name, Product product) {
+        super(name);
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        this.product = product;
+        this.productClass = null;
+    }
+
+    /**
+     * Constructor for a promotion on a product type
+     * 
+     * @param name         The promotion name
+     * @param productClass The discounted product class or interface
+     */
+    protected LinePromotion(String name, Class<?> productClass) {
+        super(name);
+        if (productClass == null) {
+            throw new IllegalArgumentException("Product class cannot be null");
+        }
+        this.product = null;
+        this.productClass = productClass;
+    }
+
+    /**
+     * Calculates the discount on one cart line
+     * 
+     * @param unitPrice The line's unit price in minor units
+     * @param quantity  The line's quantity
+     * @return The discount in minor units, at most the line total
+     */
+    public abstract long discount(long unitPrice, int quantity);
+
+    /**
+     * Checks whether the promotion applies to a product
+     * 
+     * @param candidate The product
+     * @return true if the product is the target or of the target class
+     */
+    public boolean appliesTo(Product candidate) {
+        return product != null ? product == candidate : productClass.isInstance(candidate);
+    }
+
+    /**
+     * Gets the target product
+     * 
+     * @return The product, or null if the promotion targets a product class
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * Gets the target product class
+     * 
+     * @return The class, or null if the promotion targets one product
+     */
+    public Class<?> getProductClass() {
+        return productClass;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package model.promotion;
+import model.product.Product;
+
+/**
+ * Takes a percentage off the price of a product or product type
+ */
+public class PercentOffPromotion extends LinePromotion {
+    private final double percent;
+
+    /**
+     * Constructor for a percentage off one product
+     * 
+     * @param name    The promotion name
+     * @param product The discounted product
+     * @param percent The percentage off, above 0 and at most 100
+     */
+    public PercentOffPromotion(String name, Product product, double percent) {
+        super(name, product);
+        this.percent = requirePercent(percent);
+    }
+
+    /**
+     * Constructor for a percentage off a product type
+     * 
+     * @param name         The promotion name
+     * @param productClass The discounted product class or interface
+     * @param percent      The percentage off, above 0 and at most 100
+     */
+    public PercentOffPromotion(String name, Class<?> productClass, double percent) {
+        super(name, productClass);
+        this.percent = requirePercent(percent);
+    }
+
+    private static double requirePercent(double percent) {
+        if (!(percent > 0 && percent <= 100)) {
+            throw new IllegalArgumentException("Percentage must be above 0 and at most 100");
+        }
+        return percent;
+    }
+
+    @Override
+    public long discount(long unitPrice, int quantity) {
+        return Math.round(unitPrice * quantity * percent / 100.0);
+    }
+
+    public double getPercent() {
+        return percent;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package model.promotion;
+
+/**
+ * Base class of all promotion rules. Rules only describe a discount; the
+ * promotion engine decides which lines of a cart each rule is evaluated for.
+ */
+public abstract class Promotion {
+    private final String name;
+
+    /**
+     * Constructor for a promotion
+     * 
+     * @param name The promotion name
+     */
+    protected Promotion(String name) {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("Promotion name cannot be empty");
+        }
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package model.shipping;
+
+/**
+ * One or more identical parcels packed from a shipment. A unit heavier than
+ * the parcel weight limit ships alone, so all units of such a line become one
+ * parcel entry with a count instead of one entry per unit.
+ */
+public class Parcel {
+    private final Shipment contents;
+    private final int count;
+
+    /**
+     * Constructor for parcel
+     * 
+     * @param contents What each of the parcels holds
+     * @param count    The number of identical parcels (must be positive)
+     */
+    public Parcel(Shipment contents, int count) {
+        if (contents == null) {
+            throw new IllegalArgumentException("Contents cannot be null");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be positive");
+        }
+        this.contents = contents;
+        this.count = count;
+    }
+
+    // Getters
+    public Shipment getContents() {
+        return contents;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+package model.shipping;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Splits a shipment into parcels that respect a carrier's weight limit, using
+ * the first-fit-decreasing heuristic: heaviest items first, each unit into the
+ * first parcel that still has room, opening a new parcel only when none does.
+ * 
+ * Units of one line all weigh the same, so they are placed as many at a time
+ * as fit rather than one by one. The first parcel with enough room is found in
+ * a max segment tree over the parcels' remaining capacity, which makes each
+ * placement O(log parcels). Packing therefore costs
+ * O((lines + parcels) log parcels), independent of the unit count.
+ * 
+ * A unit heavier than the limit cannot be split, so it ships alone in an
+ * overweight parcel. All units of such a line become one {@link Parcel} entry
+ * counting its identical parcels, which keeps the cost independent of the
+ * unit count there too.
+ */
+public class ParcelPacker {
+    private static final double MILLIGRAMS_PER_KG = 1_000_000.0; // Weights are packed as exact integers
+
+    private final double maxParcelWeight;
+    private final long capacity;
+
+    /**
+     * Constructor for a packer
+     * 
+     * @param maxParcelWeight Weight limit of one parcel in kilograms (must be positive)
+     */
+    public ParcelPacker(double maxParcelWeight) {
+        if (!(maxParcelWeight > 0) || Double.isInfinite(maxParcelWeight)) {
+            throw new IllegalArgumentException("Parcel weight limit must be positive");
+        }
+        this.maxParcelWeight = maxParcelWeight;
+        this.capacity = toMilligrams(maxParcelWeight);
+    }
+
+    /**
+     * Packs a shipment into parcels
+     * 
+     * @param shipment The shipment to pack
+     * @return The parcels, in the order they were opened; empty if the
+     *         shipment is empty
+     */
+    public List<Parcel> pack(Shipment shipment) {
+        ShipmentLine[] lines = shipment.getLines().toArray(new ShipmentLine[0]);
+        // Stable sort, so equal weights keep their cart order
+        Arrays.sort(lines, Comparator.comparingDouble((ShipmentLine line) -> line.getItem().getWeight()).reversed());
+
+        List<List<ShipmentLine>> contents = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        CapacityTree remaining = new CapacityTree();
+        for (ShipmentLine line : lines) {
+            Shippable item = line.getItem();
+            long unitWeight = toMilligrams(item.getWeight());
+            int left = line.getQuantity();
+            if (unitWeight > capacity) {
+                // One unit in each of `left` identical parcels, none with room to spare
+                contents.add(List.of(new ShipmentLine(item, 1)));
+                counts.add(left);
+                remaining.append(CapacityTree.NO_PARCEL);
+                continue;
+            }
+            while (left > 0) {
+                int parcel = remaining.firstFit(unitWeight);
+                if (parcel < 0) {
+                    parcel = contents.size();
+                    contents.add(new ArrayList<>());
+                    counts.add(1);
+                    remaining.append(capacity);
+                }
+                long room = remaining.get(parcel);
+                int units = unitWeight == 0 ? left : (int) Math.min(left, room / unitWeight);
+                contents.get(parcel).add(new ShipmentLine(item, units));
+                remaining.set(parcel, room - units * unitWeight);
+                left -= units;
+            }
+        }
+
+        List<Parcel> parcels = new ArrayList<>(contents.size());
+        for (int i = 0; i < contents.size(); i++) {
+            parcels.add(new Parcel(new Shipment(contents.get(i)), counts.get(i)));
+        }
+        return parcels;
+    }
+
+    public double getMaxParcelWeight() {
+        return maxParcelWeight;
+    }
+
+    private static long toMilligrams(double kilograms) {
+        return Math.round(kilograms * MILLIGRAMS_PER_KG);
+    }
+
+    /**
+     * Max segment tree over the remaining capacity of each parcel, in opening
+     * order, answering "first parcel with at least this much room"
+     */
+    private static final class CapacityTree {
+        private static final long NO_PARCEL = -1; // Leaves past the last parcel never fit
+        private long[] tree = newTree(16);
+        private int leaves = 16; // Power of two
+        private int count;
+
+        void append(long room) {
+            if (count == leaves) {
+                grow();
+            }
+            set(count++, room);
+        }
+
+        long get(int parcel) {
+            return tree[leaves + parcel];
+        }
+
+        void set(int parcel, long room) {
+            int node = leaves + parcel;
+            tree[node] = room;
+            for (node >>>= 1; node > 0; node >>>= 1) {
+                tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        /**
+         * Finds the first parcel with at least the given room
+         * 
+         * @return The parcel index, or -1 if no parcel has enough room
+         */
+        int firstFit(long room) {
+            if (count == 0 || tree[1] < room) {
+                return -1;
+            }
+            int node = 1;
+            while (node < leaves) {
+                node = tree[2 * node] >= room ? 2 * node : 2 * node + 1;
+            }
+            return node - leaves;
+        }
+
+        private void grow() {
+            long[] old = tree;
+            int oldLeaves = leaves;
+            leaves *= 2;
+            tree = newTree(leaves);
+            System.arraycopy(old, oldLeaves, tree, leaves, oldLeaves);
+            for (int node = leaves - 1; node > 0; node--) {
+                tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        private static long[] newTree(int leaves) {
+            long[] tree = new long[2 * leaves];
+            Arrays.fill(tree, NO_PARCEL);
+            return tree;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package model.shipping;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A package to ship, made of one line per distinct item. Its size depends on
+ * the number of distinct items, not on the number of units ordered.
+ */
+public class Shipment {
+    private final List<ShipmentLine> lines;
+    private final double totalWeight;
+    private final long unitCount;
+
+    /**
+     * Constructor for shipment
+     * 
+     * @param lines The lines to ship
+     */
+    public Shipment(List<ShipmentLine> lines) {
+        if (lines == null) {
+            throw new IllegalArgumentException("Lines cannot be null");
+        }
+        this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+        double weight = 0;
+        long units = 0;
+        for (ShipmentLine line : this.lines) {
+            weight += line.getTotalWeight();
+            units += line.getQuantity();
+        }
+        this.totalWeight = weight;
+        this.unitCount = units;
+    }
+
+    /**
+     * Checks if there is nothing to ship
+     * 
+     * @return true if the shipment has no lines
+     */
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    // Getters
+    public List<ShipmentLine> getLines() {
+        return lines;
+    }
+
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    public long getUnitCount() {
+        return unitCount;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package model.shipping;
+
+public class ShipmentLine {
+    private final Shippable item;
+    private final int quantity;
+
+    /**
+     * Constructor for shipment line
+     * 
+     * @param item     The item to ship
+     * @param quantity The number of units of the item (must be positive)
+     */
+    public ShipmentLine(Shippable item, int quantity) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item cannot be null");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        this.item = item;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Calculates the weight of all units on this line
+     * 
+     * @return Unit weight * quantity in kilograms
+     */
+    public double getTotalWeight() {
+        return item.getWeight() * quantity;
+    }
+
+    // Getters
+    public Shippable getItem() {
+        return item;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dx %s", quantity, item.getName());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,127 @@
+package model.shipping;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A shipment priced for one destination: the parcels it was packed into and
+ * what one parcel of each entry costs. Checkout charges the quote's cost and
+ * the shipment notice prints the same parcels and prices, so neither packs
+ * the shipment or reads the rate table again.
+ */
+public class ShippingQuote {
+    private final String destination;
+    private final Shipment shipment;
+    private final List<Parcel> parcels;
+    private final double[] parcelCosts;
+    private final double cost;
+
+    /**
+     * Constructor for a shipment sent as one package
+     * 
+     * @param destination Where the shipment goes, or null for the default zone
+     * @param shipment    The shipment
+     * @param cost        The shipping cost of the package
+     */
+    public ShippingQuote(String destination, Shipment shipment, double cost) {
+        this(destination, shipment, Collections.emptyList(), new double[0], cost);
+    }
+
+    /**
+     * Constructor for a shipment packed into parcels
+     * 
+     * @param destination Where the shipment goes, or null for the default zone
+     * @param shipment    The shipment
+     * @param parcels     The parcels the shipment was packed into
+     * @param parcelCosts The cost of one parcel of each entry, by index
+     */
+    public ShippingQuote(String destination, Shipment shipment, List<Parcel> parcels, double[] parcelCosts) {
+        this(destination, shipment, parcels, parcelCosts, totalCost(parcels, parcelCosts));
+    }
+
+    private ShippingQuote(String destination, Shipment shipment, List<Parcel> parcels, double[] parcelCosts,
+            double cost) {
+        if (shipment == null) {
+            throw new IllegalArgumentException("Shipment cannot be null");
+        }
+        this.destination = destination;
+        this.shipment = shipment;
+        this.parcels = Collections.unmodifiableList(new ArrayList<>(parcels));
+        this.parcelCosts = parcelCosts.clone();
+        this.cost = cost;
+    }
+
+    /**
+     * Combines quotes for the same destination into one consolidated shipment,
+     * keeping every parcel at the price it was quoted
+     * 
+     * @param destination Where the shipments go
+     * @param quotes      The quotes to combine
+     * @return The consolidated quote
+     */
+    public static ShippingQuote combine(String destination, List<ShippingQuote> quotes) {
+        List<ShipmentLine> lines = new ArrayList<>();
+        List<Parcel> parcels = new ArrayList<>();
+        int parcelCount = 0;
+        double cost = 0;
+        for (ShippingQuote quote : quotes) {
+            lines.addAll(quote.shipment.getLines());
+            parcels.addAll(quote.parcels);
+            parcelCount += quote.parcelCosts.length;
+            cost += quote.cost;
+        }
+        double[] parcelCosts = new double[parcelCount];
+        int next = 0;
+        for (ShippingQuote quote : quotes) {
+            System.arraycopy(quote.parcelCosts, 0, parcelCosts, next, quote.parcelCosts.length);
+            next += quote.parcelCosts.length;
+        }
+        return new ShippingQuote(destination, new Shipment(lines), parcels, parcelCosts, cost);
+    }
+
+    /**
+     * Gets the cost of one parcel of an entry
+     * 
+     * @param index The index of the entry in {@link #getParcels()}
+     * @return The cost of one of its parcels
+     */
+    public double getParcelCost(int index) {
+        return parcelCosts[index];
+    }
+
+    // Getters
+    public String getDestination() {
+        return destination;
+    }
+
+    public Shipment getShipment() {
+        return shipment;
+    }
+
+    /**
+     * Gets the parcels the shipment was packed into
+     * 
+     * @return The parcels, or an empty list if it ships as one package
+     */
+    public List<Parcel> getParcels() {
+        return parcels;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    private static double totalCost(List<Parcel> parcels, double[] parcelCosts) {
+        if (parcels == null || parcelCosts == null) {
+            throw new IllegalArgumentException("Parcels and their costs cannot be null");
+        }
+        if (parcels.size() != parcelCosts.length) {
+            throw new IllegalArgumentException("Every parcel needs exactly one cost");
+        }
+        double total = 0;
+        for (int i = 0; i < parcelCosts.length; i++) {
+            total += parcels.get(i).getCount() * parcelCosts[i];
+        }
+        return total;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,230 @@
+package model.shipping;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable shipping price list, compiled from weight-tier and zone
+ * configuration into flat arrays.
+ * 
+ * Each zone has a sorted array of weight breakpoints with a base fee and a
+ * per-kilogram rate for each tier. A package costs the base fee plus the rate
+ * times its weight, taken from the first tier whose breakpoint is at or above
+ * the weight; heavier packages use the last tier. Quoting is a hash lookup of
+ * the destination's zone and a binary search over its breakpoints, with no
+ * allocation. Destinations without an assigned zone use the default zone.
+ */
+public final class ShippingRateTable {
+    private final String[] zoneNames;
+    private final Map<String, Integer> zoneByDestination;
+    private final double[][] breakpoints; // Per zone, ascending upper weight bounds in kg
+    private final double[][] baseFees; // Per zone and tier
+    private final double[][] ratesPerKg; // Per zone and tier
+
+    private ShippingRateTable(Builder builder) {
+        int zones = builder.zones.size();
+        zoneNames = new String[zones];
+        breakpoints = new double[zones][];
+        baseFees = new double[zones][];
+        ratesPerKg = new double[zones][];
+        for (int zone = 0; zone < zones; zone++) {
+            ZoneConfig config = builder.zones.get(zone);
+            int tiers = config.tiers.size();
+            zoneNames[zone] = config.name;
+            breakpoints[zone] = new double[tiers];
+            baseFees[zone] = new double[tiers];
+            ratesPerKg[zone] = new double[tiers];
+            for (int tier = 0; tier < tiers; tier++) {
+                double[] values = config.tiers.get(tier);
+                breakpoints[zone][tier] = values[0];
+                baseFees[zone][tier] = values[1];
+                ratesPerKg[zone][tier] = values[2];
+            }
+        }
+        zoneByDestination = new HashMap<>(builder.destinations);
+    }
+
+    /**
+     * Creates a table with one zone charging the same rate for every kilogram
+     * 
+     * @param ratePerKg The rate per kilogram
+     * @return The flat-rate table
+     */
+    public static ShippingRateTable flat(double ratePerKg) {
+        return builder().zone("default").tier(Double.POSITIVE_INFINITY, 0, ratePerKg).build();
+    }
+
+    /**
+     * Starts a table; the first zone added is the default zone
+     * 
+     * @return A new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Quotes the cost of shipping one package
+     * 
+     * @param destination Where the package goes, or null for the default zone
+     * @param weight      The package weight in kilograms
+     * @return The shipping cost
+     */
+    public double quote(String destination, double weight) {
+        return quote(zoneOf(destination), weight);
+    }
+
+    /**
+     * Quotes the cost of shipping one package to a zone
+     * 
+     * @param zone   The zone index, see {@link #zoneOf(String)}
+     * @param weight The package weight in kilograms
+     * @return The shipping cost
+     */
+    public double quote(int zone, double weight) {
+        double[] bounds = breakpoints[zone];
+        // First breakpoint at or above the weight, or the last tier if none is
+        int low = 0;
+        int high = bounds.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bounds[mid] < weight) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return baseFees[zone][low] + ratesPerKg[zone][low] * weight;
+    }
+
+    /**
+     * Gets the zone a destination belongs to
+     * 
+     * @param destination The destination, or null
+     * @return The zone index; 0 (the default zone) if none is assigned
+     */
+    public int zoneOf(String destination) {
+        Integer zone = destination == null ? null : zoneByDestination.get(destination);
+        return zone == null ? 0 : zone;
+    }
+
+    public String getZoneName(int zone) {
+        return zoneNames[zone];
+    }
+
+    public int getZoneCount() {
+        return zoneNames.length;
+    }
+
+    /**
+     * Collects zones, their weight tiers and destinations, then compiles them
+     */
+    public static final class Builder {
+        private final List<ZoneConfig> zones = new ArrayList<>();
+        private final Map<String, Integer> zoneIndexes = new HashMap<>();
+        private final Map<String, Integer> destinations = new HashMap<>();
+        private ZoneConfig current;
+
+        private Builder() {
+        }
+
+        /**
+         * Starts (or continues) a zone; the following tiers and destinations belong to it
+         * 
+         * @param name The zone name
+         * @return This builder
+         */
+        public Builder zone(String name) {
+            if (name == null) {
+                throw new IllegalArgumentException("Zone name cannot be null");
+            }
+            Integer index = zoneIndexes.get(name);
+            if (index == null) {
+                index = zones.size();
+                zones.add(new ZoneConfig(name));
+                zoneIndexes.put(name, index);
+            }
+            current = zones.get(index);
+            return this;
+        }
+
+        /**
+         * Adds a weight tier to the current zone; tiers must be added in
+         * ascending weight order
+         * 
+         * @param upToWeight The heaviest package weight in kg this tier covers
+         * @param baseFee    The fixed fee per package
+         * @param ratePerKg  The rate per kilogram
+         * @return This builder
+         */
+        public Builder tier(double upToWeight, double baseFee, double ratePerKg) {
+            requireZone();
+            if (!(upToWeight > 0)) {
+                throw new IllegalArgumentException("Tier weight must be positive");
+            }
+            if (!(baseFee >= 0) || !(ratePerKg >= 0) || Double.isInfinite(baseFee) || Double.isInfinite(ratePerKg)) {
+                throw new IllegalArgumentException("Fees must be non-negative numbers");
+            }
+            List<double[]> tiers = current.tiers;
+            if (!tiers.isEmpty() && tiers.get(tiers.size() - 1)[0] >= upToWeight) {
+                throw new IllegalArgumentException("Tiers must be added in ascending weight order");
+            }
+            tiers.add(new double[] { upToWeight, baseFee, ratePerKg });
+            return this;
+        }
+
+        /**
+         * Assigns destinations to the current zone
+         * 
+         * @param names The destinations, as given in customers' shipping addresses
+         * @return This builder
+         */
+        public Builder destinations(String... names) {
+            requireZone();
+            int index = zoneIndexes.get(current.name);
+            for (String name : names) {
+                if (destinations.putIfAbsent(name, index) != null) {
+                    throw new IllegalArgumentException("Destination " + name + " is already in a zone");
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Compiles the configuration into a table
+         * 
+         * @return The table
+         * @throws IllegalStateException if there is no zone or a zone has no tier
+         */
+        public ShippingRateTable build() {
+            if (zones.isEmpty()) {
+                throw new IllegalStateException("Rate table needs at least one zone");
+            }
+            for (ZoneConfig zone : zones) {
+                if (zone.tiers.isEmpty()) {
+                    throw new IllegalStateException("Zone " + zone.name + " has no weight tiers");
+                }
+            }
+            return new ShippingRateTable(this);
+        }
+
+        private void requireZone() {
+            if (current == null) {
+                throw new IllegalStateException("Start a zone before adding tiers or destinations");
+            }
+        }
+    }
+
+    /**
+     * Configuration of one zone while the table is being built
+     */
+    private static final class ZoneConfig {
+        final String name;
+        final List<double[]> tiers = new ArrayList<>(); // { upToWeight, baseFee, ratePerKg }
+
+        ZoneConfig(String name) {
+            this.name = name;
+        }
+    }
+}
\ No newline at end of file
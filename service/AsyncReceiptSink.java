@@ -0,0 +1,92 @@
+package service;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Sink that queues completed documents and writes them to a delegate sink
+ * on a background thread, so checkout never waits on the output stream.
+ * Documents are written in the order they were queued.
+ */
+public class AsyncReceiptSink implements ReceiptSink, AutoCloseable {
+    private static final int MAX_DRAIN = 256; // Documents written per wake-up
+
+    private final ReceiptSink delegate;
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Constructor that starts the background writer
+     * 
+     * @param delegate The sink that performs the actual output
+     */
+    public AsyncReceiptSink(ReceiptSink delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("Delegate sink cannot be null");
+        }
+        this.delegate = delegate;
+        this.writer = new Thread(this::drainLoop, "receipt-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a copy of the document for the background writer
+     * 
+     * @param document The formatted document
+     * @throws IllegalStateException if the sink has been closed
+     */
+    @Override
+    public void write(CharSequence document) {
+        if (closed) {
+            throw new IllegalStateException("Receipt sink is closed");
+        }
+        queue.add(document.toString());
+    }
+
+    /**
+     * Stops accepting documents and waits until every queued one is written
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        // Pick up documents queued while close() was racing with write()
+        List<String> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        writeAll(leftovers);
+    }
+
+    private void drainLoop() {
+        List<String> batch = new ArrayList<>(MAX_DRAIN);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // Woken up by close(); loop again to drain what is left
+            }
+            queue.drainTo(batch, MAX_DRAIN - batch.size());
+            writeAll(batch);
+        }
+    }
+
+    private void writeAll(List<String> batch) {
+        for (String document : batch) {
+            try {
+                delegate.write(document);
+            } catch (RuntimeException e) {
+                // Keep the writer alive; one bad write must not drop later receipts
+                System.err.println("Failed to write receipt: " + e.getMessage());
+            }
+        }
+        batch.clear();
+    }
+}
\ No newline at end of file
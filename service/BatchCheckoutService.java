@@ -0,0 +1,118 @@
+package service;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import model.order.FailureReason;
+import model.order.Validation;
+
+/**
+ * Runs many checkouts concurrently, e.g. during flash sales or when draining
+ * queued mobile orders.
+ * 
+ * Each order runs on its own virtual thread when the runtime supports them
+ * (Java 21+), otherwise on a pool of platform threads. At most
+ * {@code parallelism} orders are in flight at a time. A failed order never
+ * stops the batch; it is reported in its own result instead.
+ */
+public class BatchCheckoutService {
+    private final CheckoutService checkoutService;
+    private final int parallelism;
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param checkoutService The service that processes each order
+     * @param parallelism     Maximum number of orders processed at once
+     */
+    public BatchCheckoutService(CheckoutService checkoutService, int parallelism) {
+        if (checkoutService == null) {
+            throw new IllegalArgumentException("Checkout service cannot be null");
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.checkoutService = checkoutService;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Processes all orders concurrently. Every request must use its own cart.
+     * 
+     * @param requests The orders to process
+     * @return One result per request, in request order
+     */
+    public List<CheckoutResult> processBatch(List<CheckoutRequest> requests) {
+        CheckoutResult[] results = new CheckoutResult[requests.size()];
+        if (results.length == 0) {
+            return Arrays.asList(results);
+        }
+
+        Semaphore permits = new Semaphore(parallelism);
+        ExecutorService executor = newExecutor(Math.min(parallelism, results.length));
+        try {
+            for (int i = 0; i < results.length; i++) {
+                CheckoutRequest request = requests.get(i);
+                int index = i;
+                permits.acquireUninterruptibly();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            results[index] = process(request);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    permits.release();
+                    results[index] = CheckoutResult.failure(request, FailureReason.UNEXPECTED_ERROR,
+                            e.toString());
+                }
+            }
+            // Once every permit is back, every order has finished
+            permits.acquireUninterruptibly(parallelism);
+        } finally {
+            executor.shutdown();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Processes a single order and turns its outcome into a result
+     * 
+     * @param request The order to process
+     * @return The result of the order
+     */
+    private CheckoutResult process(CheckoutRequest request) {
+        try {
+            long result = checkoutService.tryCheckout(request.getCustomer(), request.getCart());
+            return Validation.isOk(result)
+                    ? CheckoutResult.success(request)
+                    : CheckoutResult.failure(request, result);
+        } catch (RuntimeException e) {
+            return CheckoutResult.failure(request, FailureReason.UNEXPECTED_ERROR, e.toString());
+        }
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor when the runtime has one,
+     * otherwise a fixed pool of daemon platform threads
+     * 
+     * @param poolSize Number of platform threads to use as a fallback
+     * @return The executor for one batch
+     */
+    private static ExecutorService newExecutor(int poolSize) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newFixedThreadPool(poolSize, task -> {
+                Thread thread = new Thread(task, "batch-checkout");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
\ No newline at end of file
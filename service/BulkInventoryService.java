@@ -0,0 +1,156 @@
+package service;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+import model.product.Product;
+import model.product.ProductCatalog;
+
+/**
+ * Applies supplier feeds (restock deliveries and price revisions) to the
+ * catalog in bulk.
+ * 
+ * A feed is given as parallel arrays, one row per index, so millions of rows
+ * need no per-row objects. Rows are split into ranges and applied on a
+ * fork/join pool. Every row is an independent atomic update of one product:
+ * restocking only adds to the units free for sale, and repricing never changes
+ * the price of lines already in carts, so checkouts in flight are unaffected.
+ * Rows go through the catalog, so they are journaled if the catalog was
+ * created with a {@link model.product.StockJournal}.
+ */
+public class BulkInventoryService {
+    private static final int ROWS_PER_TASK = 4096; // Below this a range is applied on one thread
+
+    private final ProductCatalog catalog;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor with dependency injection, running on the common pool
+     * 
+     * @param catalog The catalog that feed rows refer to by product id
+     */
+    public BulkInventoryService(ProductCatalog catalog) {
+        this(catalog, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param catalog The catalog that feed rows refer to by product id
+     * @param pool    The pool that applies the rows
+     */
+    public BulkInventoryService(ProductCatalog catalog, ForkJoinPool pool) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.catalog = catalog;
+        this.pool = pool;
+    }
+
+    /**
+     * Adds delivered units to the available stock of each product in the feed.
+     * Rows whose product is not in the catalog, or whose delivery would overflow
+     * the stock counter, are skipped.
+     * 
+     * @param productIds The product of each row
+     * @param units      The units delivered in each row (must be positive)
+     * @return The number of rows applied
+     * @throws IllegalArgumentException if the arrays differ in length or a row
+     *                                  has no positive units; nothing is applied
+     */
+    public int restock(long[] productIds, int[] units) {
+        requireSameLength(productIds.length, units.length);
+        for (int i = 0; i < units.length; i++) {
+            if (units[i] <= 0) {
+                throw new IllegalArgumentException("Units must be positive (row " + i + ")");
+            }
+        }
+        return applyRows(productIds.length, row -> {
+            Product product = catalog.findById(productIds[row]);
+            if (product == null) {
+                return false;
+            }
+            try {
+                catalog.restock(product, units[row]);
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false; // Would overflow the stock counter
+            }
+        });
+    }
+
+    /**
+     * Sets the price of each product in the feed. Each product switches to its
+     * new price atomically. Rows whose product is not in the catalog are skipped.
+     * 
+     * @param productIds The product of each row
+     * @param prices     The new price of each row (must be non-negative)
+     * @return The number of rows applied
+     * @throws IllegalArgumentException if the arrays differ in length or a row
+     *                                  has an invalid price; nothing is applied
+     */
+    public int reprice(long[] productIds, double[] prices) {
+        requireSameLength(productIds.length, prices.length);
+        for (int i = 0; i < prices.length; i++) {
+            if (!(prices[i] >= 0) || Double.isInfinite(prices[i])) {
+                throw new IllegalArgumentException("Price must be a non-negative number (row " + i + ")");
+            }
+        }
+        return applyRows(productIds.length, row -> {
+            Product product = catalog.findById(productIds[row]);
+            if (product == null) {
+                return false;
+            }
+            catalog.reprice(product, prices[row]);
+            return true;
+        });
+    }
+
+    private int applyRows(int rows, IntPredicate applyRow) {
+        return rows == 0 ? 0 : pool.invoke(new RowRange(applyRow, 0, rows));
+    }
+
+    private static void requireSameLength(int ids, int values) {
+        if (ids != values) {
+            throw new IllegalArgumentException("Feed arrays must have the same length");
+        }
+    }
+
+    /**
+     * Applies a range of feed rows, splitting it in half until it is small
+     * enough for one thread
+     */
+    private static final class RowRange extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final IntPredicate applyRow;
+        private final int start;
+        private final int end;
+
+        RowRange(IntPredicate applyRow, int start, int end) {
+            this.applyRow = applyRow;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (end - start <= ROWS_PER_TASK) {
+                int applied = 0;
+                for (int row = start; row < end; row++) {
+                    if (applyRow.test(row)) {
+                        applied++;
+                    }
+                }
+                return applied;
+            }
+            int middle = (start + end) >>> 1;
+            RowRange left = new RowRange(applyRow, start, middle);
+            left.fork();
+            int right = new RowRange(applyRow, middle, end).compute();
+            return right + left.join();
+        }
+    }
+}
\ No newline at end of file
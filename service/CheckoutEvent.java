@@ -0,0 +1,84 @@
+package service;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for one checkout, with the cart size, the outcome and
+ * the time spent in each stage. When the event is not enabled in the running
+ * recording, creating and committing it costs next to nothing, so it stays on
+ * permanently.
+ */
+@Name("ecommerce.Checkout")
+@Label("Checkout")
+@Category({ "E-Commerce", "Checkout" })
+@Description("One checkout with its per-stage durations")
+@StackTrace(false)
+class CheckoutEvent extends Event {
+    @Label("Cart Lines")
+    int lineCount;
+
+    @Label("Units")
+    long unitCount;
+
+    @Label("Shippable Weight (kg)")
+    double shippableWeight;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Validate")
+    @Timespan(Timespan.NANOSECONDS)
+    long validateNanos;
+
+    @Label("Subtotal")
+    @Timespan(Timespan.NANOSECONDS)
+    long subtotalNanos;
+
+    @Label("Shipping")
+    @Timespan(Timespan.NANOSECONDS)
+    long shippingNanos;
+
+    @Label("Inventory")
+    @Timespan(Timespan.NANOSECONDS)
+    long inventoryNanos;
+
+    @Label("Payment")
+    @Timespan(Timespan.NANOSECONDS)
+    long paymentNanos;
+
+    @Label("Journal")
+    @Timespan(Timespan.NANOSECONDS)
+    long journalNanos;
+
+    @Label("Receipt")
+    @Timespan(Timespan.NANOSECONDS)
+    long receiptNanos;
+
+    /**
+     * Fills in the stage durations and outcome, then commits if the event
+     * passes the recording's threshold
+     * 
+     * @param timer   The timer of the finished checkout
+     * @param outcome "OK" or the failure reason
+     */
+    void complete(StageTimer timer, String outcome) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.outcome = outcome;
+        validateNanos = timer.stageNanos(CheckoutStage.VALIDATE);
+        subtotalNanos = timer.stageNanos(CheckoutStage.SUBTOTAL);
+        shippingNanos = timer.stageNanos(CheckoutStage.SHIPPING);
+        inventoryNanos = timer.stageNanos(CheckoutStage.INVENTORY);
+        paymentNanos = timer.stageNanos(CheckoutStage.PAYMENT);
+        journalNanos = timer.stageNanos(CheckoutStage.JOURNAL);
+        receiptNanos = timer.stageNanos(CheckoutStage.RECEIPT);
+        commit();
+    }
+}
\ No newline at end of file
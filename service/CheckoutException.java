@@ -0,0 +1,26 @@
+package service;
+import model.order.FailureReason;
+
+/**
+ * Thrown when a checkout is rejected, carrying the typed reason
+ */
+public class CheckoutException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final FailureReason failure;
+
+    /**
+     * Constructor for checkout exception
+     * 
+     * @param failure The reason the checkout was rejected
+     * @param message The detail message
+     */
+    public CheckoutException(FailureReason failure, String message) {
+        super(message);
+        this.failure = failure;
+    }
+
+    public FailureReason getFailure() {
+        return failure;
+    }
+}
\ No newline at end of file
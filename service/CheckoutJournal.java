@@ -0,0 +1,669 @@
+package service;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import model.customer.Customer;
+import model.order.CartItem;
+import model.product.Product;
+import model.product.StockJournal;
+
+/**
+ * Append-only write-ahead journal of completed checkouts and of the stock
+ * and price changes made between them.
+ * 
+ * Each order is one checksummed record holding the balance debit and the
+ * stock decrement of every line; a cancelled order gets a second record that
+ * reverses it. Restocks, withdrawals from sale and reprices are recorded as
+ * the journal applies them (see {@link StockJournal}). Every record carries a
+ * sequence number. Records are written by
+ * a single background thread with group commit: all records queued while the
+ * previous batch was being forced to disk are written together and share one
+ * {@link FileChannel#force(boolean)}. If a batch fails, it is cut off the file
+ * again and every record in it reports the failure.
+ * 
+ * On startup, {@link #recover(LongFunction, LongFunction)} loads the latest
+ * snapshot and replays the records written after it, restoring product stock,
+ * prices and customer balances exactly. Increases of stock are recorded
+ * before they take effect and decreases after, so replaying the records in
+ * file order never takes a product below zero. A torn record at the end of the file (from a
+ * crash mid-write) is discarded. {@link #compact(Collection, Collection)}
+ * writes a new snapshot and empties the journal.
+ * 
+ * Products and customers are identified by id, so they must be recreated with
+ * the same ids before recovery: give them stable ids (e.g. SKU and account
+ * numbers) through their id constructors.
+ */
+public class CheckoutJournal implements StockJournal, AutoCloseable {
+    private static final String JOURNAL_FILE = "checkout.journal";
+    private static final String SNAPSHOT_FILE = "checkout.snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x45435348; // "ECSH"
+    private static final int FORMAT_VERSION = 3;
+    private static final int RECORD_HEADER_BYTES = 8; // Payload length + CRC32
+    private static final int RECORD_PREFIX_BYTES = 9; // Sequence number + record type
+    private static final byte ORDER = 1;
+    private static final byte CANCELLATION = 2;
+    private static final byte STOCK = 3; // Units added to or taken out of sale
+    private static final byte PRICE = 4;
+    private static final int MAX_BATCH = 1024; // Records per forced write
+
+    private final Path directory;
+    private final FileChannel channel;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    // Checkouts hold the read side while they mutate state and append; compaction
+    // takes the write side so no snapshot sees a mutation whose record is missing
+    private final ReentrantReadWriteLock mutationGate = new ReentrantReadWriteLock();
+    private final Object channelLock = new Object();
+    private final AtomicLong lastSequence = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean recovered;
+    private volatile boolean closed;
+    private ScheduledExecutorService compactionScheduler;
+
+    private CheckoutJournal(Path directory, FileChannel channel) {
+        this.directory = directory;
+        this.channel = channel;
+        this.writer = new Thread(this::writeLoop, "checkout-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Opens (or creates) the journal in a directory. Call
+     * {@link #recover(LongFunction, LongFunction)} before processing checkouts.
+     * 
+     * @param directory The directory holding the journal and snapshot files
+     * @return The open journal
+     * @throws IOException if the files cannot be opened
+     */
+    public static CheckoutJournal open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel channel = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new CheckoutJournal(directory, channel);
+    }
+
+    /**
+     * Restores product stock, prices and customer balances from the snapshot
+     * and the journal records written after it. Prices are set on the products
+     * directly, so list them in a catalog only after recovery.
+     * 
+     * @param products  Looks up a product by id
+     * @param customers Looks up a customer by id
+     * @return The number of records replayed from the journal
+     * @throws IOException           if the files cannot be read
+     * @throws IllegalStateException if the files reference unknown products or
+     *                               customers, or are corrupt
+     */
+    public int recover(LongFunction<Product> products, LongFunction<Customer> customers) throws IOException {
+        synchronized (channelLock) {
+            long snapshotSequence = readSnapshot(products, customers);
+            lastSequence.set(snapshotSequence);
+
+            int replayed = 0;
+            long validEnd = 0;
+            channel.position(0);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] payload;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0 || length > channel.size()) {
+                        break; // Torn or garbage tail
+                    }
+                    payload = new byte[length];
+                    in.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                if (applyRecord(ByteBuffer.wrap(payload), snapshotSequence, products, customers)) {
+                    replayed++;
+                }
+                validEnd += RECORD_HEADER_BYTES + payload.length;
+            }
+            channel.truncate(validEnd);
+            channel.position(validEnd);
+            channel.force(true);
+            recovered = true;
+            return replayed;
+        }
+    }
+
+    /**
+     * Enters a checkout's mutation section; stock and balance changes and the
+     * matching {@link #append(Customer, long, Collection)} must happen inside
+     * it. A checkout may wait for its record to become durable inside the
+     * section; compaction waits for it.
+     */
+    public void beginMutation() {
+        mutationGate.readLock().lock();
+    }
+
+    /**
+     * Leaves the mutation section entered with {@link #beginMutation()}
+     */
+    public void endMutation() {
+        mutationGate.readLock().unlock();
+    }
+
+    /**
+     * Queues the record of an order for the next group commit. The stock and
+     * balance changes it records must not be made final, nor the order
+     * confirmed, until the returned future completes normally.
+     * 
+     * @param customer        The customer that is charged
+     * @param debitMinorUnits The amount debited in minor units
+     * @param lines           The cart lines whose stock is sold
+     * @return A future completed once the record is durable on disk, or
+     *         completed exceptionally if it could not be written
+     * @throws IllegalStateException if the journal was not recovered or is closed
+     */
+    public CompletableFuture<Void> append(Customer customer, long debitMinorUnits, Collection<CartItem> lines) {
+        return enqueue(orderRecord(ORDER, customer, debitMinorUnits, lines));
+    }
+
+    /**
+     * Reverses an order that was already recorded and committed, e.g. because
+     * its shipment could not be processed: records the cancellation, then
+     * returns the lines' units to stock and refunds the customer
+     * 
+     * @param customer         The customer to refund
+     * @param refundMinorUnits The amount refunded in minor units
+     * @param lines            The cart lines of the order
+     * @return A future completed once the cancellation is durable on disk
+     * @throws IllegalStateException if the journal was not recovered or is closed
+     */
+    public CompletableFuture<Void> cancelOrder(Customer customer, long refundMinorUnits, Collection<CartItem> lines) {
+        beginMutation();
+        try {
+            // Recorded before the units are back on sale, so any order that
+            // sells them again is replayed after it
+            CompletableFuture<Void> durable = enqueue(orderRecord(CANCELLATION, customer, refundMinorUnits, lines));
+            for (CartItem line : lines) {
+                line.getProduct().restock(line.getQuantity());
+            }
+            customer.getAccount().credit(refundMinorUnits);
+            return durable;
+        } finally {
+            endMutation();
+        }
+    }
+
+    @Override
+    public void restock(Product product, int units) {
+        if (units <= 0) {
+            throw new IllegalArgumentException("Units must be positive");
+        }
+        beginMutation();
+        try {
+            // Recorded before the units go on sale, so any order that sells
+            // them is replayed after it
+            enqueue(stockRecord(product, units));
+            try {
+                product.restock(units);
+            } catch (IllegalArgumentException e) {
+                enqueue(stockRecord(product, -units)); // Would overflow; take the record back
+                throw e;
+            }
+        } finally {
+            endMutation();
+        }
+    }
+
+    @Override
+    public int withdrawFromSale(Product product) {
+        beginMutation();
+        try {
+            int withdrawn = product.withdrawFromSale();
+            if (withdrawn > 0) {
+                enqueue(stockRecord(product, -withdrawn));
+            }
+            return withdrawn;
+        } finally {
+            endMutation();
+        }
+    }
+
+    @Override
+    public void reprice(Product product, double price) {
+        // Serialized per product so records are in the order the prices took
+        // effect. The monitor is taken before the mutation section, as in
+        // ProductCatalog.reprice; the other order could deadlock against a
+        // catalog reprice of the same product while compaction is queued.
+        synchronized (product) {
+            beginMutation();
+            try {
+                product.reprice(price);
+                ByteBuffer record = newRecord(PRICE, 8 + 8);
+                record.putLong(product.getId());
+                record.putDouble(price);
+                enqueue(record);
+            } finally {
+                endMutation();
+            }
+        }
+    }
+
+    private ByteBuffer stockRecord(Product product, int delta) {
+        ByteBuffer record = newRecord(STOCK, 8 + 4);
+        record.putLong(product.getId());
+        record.putInt(delta);
+        return record;
+    }
+
+    /**
+     * Builds an order or cancellation record
+     */
+    private ByteBuffer orderRecord(byte type, Customer customer, long amountMinorUnits, Collection<CartItem> lines) {
+        ByteBuffer record = newRecord(type, 8 + 8 + 4 + lines.size() * 12);
+        record.putLong(customer.getId());
+        record.putLong(amountMinorUnits);
+        record.putInt(lines.size());
+        for (CartItem line : lines) {
+            record.putLong(line.getProduct().getId());
+            record.putInt(line.getQuantity());
+        }
+        return record;
+    }
+
+    /**
+     * Starts a record with the next sequence number, positioned after its prefix
+     * 
+     * @param type       The record type
+     * @param bodyLength The bytes following the prefix
+     * @return The record buffer
+     * @throws IllegalStateException if the journal was not recovered or is closed
+     */
+    private ByteBuffer newRecord(byte type, int bodyLength) {
+        if (!recovered) {
+            throw new IllegalStateException("Journal must be recovered before appending");
+        }
+        if (closed) {
+            throw new IllegalStateException("Journal is closed");
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + RECORD_PREFIX_BYTES + bodyLength);
+        record.position(RECORD_HEADER_BYTES);
+        record.putLong(lastSequence.incrementAndGet());
+        record.put(type);
+        return record;
+    }
+
+    /**
+     * Frames a filled record and queues it for the next group commit
+     */
+    private CompletableFuture<Void> enqueue(ByteBuffer record) {
+        int payloadLength = record.position() - RECORD_HEADER_BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER_BYTES, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+        record.flip();
+
+        PendingWrite write = new PendingWrite(record, false);
+        queue.add(write);
+        return write.durable;
+    }
+
+    /**
+     * Writes a snapshot of the current state and empties the journal. Waits
+     * for running checkouts to finish their mutation section and blocks new
+     * ones until the snapshot is on disk.
+     * 
+     * @param products  Every product to include in the snapshot
+     * @param customers Every customer to include in the snapshot
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void compact(Collection<Product> products, Collection<Customer> customers) throws IOException {
+        mutationGate.writeLock().lock();
+        try {
+            awaitDurable(flush());
+            synchronized (channelLock) {
+                writeSnapshot(products, customers);
+                channel.truncate(0);
+                channel.position(0);
+                channel.force(true);
+            }
+        } finally {
+            mutationGate.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts the journal periodically on a background thread
+     * 
+     * @param period    Time between compactions
+     * @param unit      Unit of the period
+     * @param products  Supplies every product at compaction time
+     * @param customers Supplies every customer at compaction time
+     */
+    public synchronized void scheduleCompaction(long period, TimeUnit unit,
+            Supplier<Collection<Product>> products, Supplier<Collection<Customer>> customers) {
+        if (compactionScheduler == null) {
+            compactionScheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "checkout-journal-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compactionScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                compact(products.get(), customers.get());
+            } catch (IOException e) {
+                System.err.println("Journal compaction failed: " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Waits for every queued record to be written, then closes the journal file
+     * 
+     * @throws IOException if the journal file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (compactionScheduler != null) {
+                compactionScheduler.shutdownNow();
+            }
+        }
+        if (closed) {
+            return;
+        }
+        closed = true;
+        PendingWrite last = new PendingWrite(ByteBuffer.allocate(0), true);
+        queue.add(last);
+        awaitDurable(last.durable);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    /**
+     * Queues an empty write; it completes once everything queued before it is durable
+     */
+    private CompletableFuture<Void> flush() {
+        PendingWrite barrier = new PendingWrite(ByteBuffer.allocate(0), false);
+        queue.add(barrier);
+        return barrier.durable;
+    }
+
+    private static void awaitDurable(CompletableFuture<Void> durable) throws IOException {
+        try {
+            durable.join();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>(MAX_BATCH);
+        boolean last = false;
+        while (!last) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue; // Only close() stops the writer, through the last write
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            long batchStart = -1;
+            try {
+                synchronized (channelLock) {
+                    batchStart = channel.position();
+                    ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+                    long remaining = 0;
+                    for (int i = 0; i < buffers.length; i++) {
+                        buffers[i] = batch.get(i).record;
+                        remaining += buffers[i].remaining();
+                    }
+                    while (remaining > 0) {
+                        remaining -= channel.write(buffers);
+                    }
+                    channel.force(false); // One force for the whole batch
+                }
+                for (PendingWrite write : batch) {
+                    last |= write.last;
+                    write.durable.complete(null);
+                }
+            } catch (IOException e) {
+                discardFailedBatch(batchStart);
+                for (PendingWrite write : batch) {
+                    last |= write.last;
+                    write.durable.completeExceptionally(new UncheckedIOException(e));
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Cuts a batch that failed to write off the end of the file, so none of its
+     * records is replayed after their checkouts were rolled back
+     * 
+     * @param batchStart The file position the batch was written at, -1 if unknown
+     */
+    private void discardFailedBatch(long batchStart) {
+        if (batchStart < 0) {
+            return;
+        }
+        synchronized (channelLock) {
+            try {
+                channel.truncate(batchStart);
+                channel.position(batchStart);
+            } catch (IOException e) {
+                System.err.println("Journal could not discard a failed write: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Applies one journal record to the in-memory state
+     * 
+     * @return true if the record was applied, false if the snapshot already covers it
+     */
+    private boolean applyRecord(ByteBuffer record, long snapshotSequence,
+            LongFunction<Product> products, LongFunction<Customer> customers) {
+        long sequence = record.getLong();
+        byte type = record.get();
+        lastSequence.accumulateAndGet(sequence, Math::max);
+        if (sequence <= snapshotSequence) {
+            return false; // Written before the snapshot; a compaction was interrupted
+        }
+        switch (type) {
+            case ORDER:
+                applyOrder(record, products, customers, false);
+                return true;
+            case CANCELLATION:
+                applyOrder(record, products, customers, true);
+                return true;
+            case STOCK: {
+                Product product = findProduct(products, record.getLong());
+                int delta = record.getInt();
+                if (delta > 0) {
+                    product.restock(delta);
+                } else {
+                    product.reduceQuantity(-delta);
+                }
+                return true;
+            }
+            case PRICE:
+                findProduct(products, record.getLong()).reprice(record.getDouble());
+                return true;
+            default:
+                throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    /**
+     * Applies an order record, or reverses it for a cancellation
+     */
+    private static void applyOrder(ByteBuffer record, LongFunction<Product> products,
+            LongFunction<Customer> customers, boolean cancel) {
+        Customer customer = findCustomer(customers, record.getLong());
+        long amount = record.getLong();
+        int lineCount = record.getInt();
+        if (cancel) {
+            customer.getAccount().credit(amount);
+        } else if (!customer.getAccount().tryDebit(amount)) {
+            throw new IllegalStateException("Journal debit exceeds the balance of customer " + customer.getId());
+        }
+        for (int i = 0; i < lineCount; i++) {
+            Product product = findProduct(products, record.getLong());
+            int units = record.getInt();
+            if (cancel) {
+                product.restock(units);
+            } else {
+                product.reduceQuantity(units);
+            }
+        }
+    }
+
+    /**
+     * Loads the snapshot, if any, into the in-memory state
+     * 
+     * @return The sequence number of the last record included in the snapshot, or 0 if none
+     */
+    private long readSnapshot(LongFunction<Product> products, LongFunction<Customer> customers)
+            throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+        CheckedInputStream checked = new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot)), new CRC32());
+        try (DataInputStream in = new DataInputStream(checked)) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported snapshot file " + snapshot);
+            }
+            long sequence = in.readLong();
+            int productCount = in.readInt();
+            long[] productIds = new long[productCount];
+            int[] quantities = new int[productCount];
+            double[] prices = new double[productCount];
+            for (int i = 0; i < productCount; i++) {
+                productIds[i] = in.readLong();
+                quantities[i] = in.readInt();
+                prices[i] = in.readDouble();
+            }
+            int customerCount = in.readInt();
+            long[] customerIds = new long[customerCount];
+            long[] balances = new long[customerCount];
+            for (int i = 0; i < customerCount; i++) {
+                customerIds[i] = in.readLong();
+                balances[i] = in.readLong();
+            }
+            long expected = checked.getChecksum().getValue();
+            if (in.readLong() != expected) {
+                throw new IllegalStateException("Corrupt snapshot file " + snapshot);
+            }
+
+            // Only touch state once the whole snapshot has been verified
+            for (int i = 0; i < productCount; i++) {
+                Product product = findProduct(products, productIds[i]);
+                product.restoreQuantity(quantities[i]);
+                product.reprice(prices[i]);
+            }
+            for (int i = 0; i < customerCount; i++) {
+                findCustomer(customers, customerIds[i]).getAccount().restoreBalance(balances[i]);
+            }
+            return sequence;
+        }
+    }
+
+    private void writeSnapshot(Collection<Product> products, Collection<Customer> customers) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(file)), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(lastSequence.get());
+            out.writeInt(products.size());
+            for (Product product : products) {
+                out.writeLong(product.getId());
+                out.writeInt(product.getQuantityOnHand());
+                out.writeDouble(product.getPrice());
+            }
+            out.writeInt(customers.size());
+            for (Customer customer : customers) {
+                out.writeLong(customer.getId());
+                out.writeLong(customer.getAccount().getBalance());
+            }
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            file.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Product findProduct(LongFunction<Product> products, long id) {
+        Product product = products.apply(id);
+        if (product == null) {
+            throw new IllegalStateException("Journal references unknown product id " + id);
+        }
+        return product;
+    }
+
+    private static Customer findCustomer(LongFunction<Customer> customers, long id) {
+        Customer customer = customers.apply(id);
+        if (customer == null) {
+            throw new IllegalStateException("Journal references unknown customer id " + id);
+        }
+        return customer;
+    }
+
+    /**
+     * A framed record waiting for the writer thread
+     */
+    private static final class PendingWrite {
+        final ByteBuffer record;
+        final boolean last; // Stops the writer once written
+        final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        PendingWrite(ByteBuffer record, boolean last) {
+            this.record = record;
+            this.last = last;
+        }
+    }
+}
\ No newline at end of file
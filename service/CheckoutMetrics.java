@@ -0,0 +1,90 @@
+package service;
+import java.util.concurrent.atomic.LongAdder;
+import model.order.FailureReason;
+
+/**
+ * Registry of checkout and shipping metrics: outcome counters, shipment
+ * counters, and latency histograms for the whole checkout and for each
+ * {@link CheckoutStage}. All counters are striped {@link LongAdder}s, so
+ * concurrent checkouts add almost no contention; reading is done through
+ * {@link #snapshot()}.
+ */
+public class CheckoutMetrics {
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder[] failures = new LongAdder[FailureReason.values().length];
+    private final LongAdder shipments = new LongAdder();
+    private final LongAdder shippedUnits = new LongAdder();
+    private final LatencyHistogram checkoutLatency = new LatencyHistogram();
+    private final LatencyHistogram[] stageLatency = new LatencyHistogram[CheckoutStage.values().length];
+
+    /**
+     * Constructor for an empty registry
+     */
+    public CheckoutMetrics() {
+        for (int i = 0; i < failures.length; i++) {
+            failures[i] = new LongAdder();
+        }
+        for (int i = 0; i < stageLatency.length; i++) {
+            stageLatency[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records a completed checkout
+     * 
+     * @param nanos The checkout duration in nanoseconds
+     */
+    public void recordSuccess(long nanos) {
+        successes.increment();
+        checkoutLatency.record(nanos);
+    }
+
+    /**
+     * Records a rejected checkout
+     * 
+     * @param reason The reason it was rejected
+     * @param nanos  The checkout duration in nanoseconds
+     */
+    public void recordFailure(FailureReason reason, long nanos) {
+        failures[reason.ordinal()].increment();
+        checkoutLatency.record(nanos);
+    }
+
+    /**
+     * Records the time spent in one checkout stage
+     * 
+     * @param stage The stage
+     * @param nanos The stage duration in nanoseconds
+     */
+    public void recordStage(CheckoutStage stage, long nanos) {
+        stageLatency[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * Records a processed shipment
+     * 
+     * @param units The number of units shipped
+     */
+    public void recordShipment(long units) {
+        shipments.increment();
+        shippedUnits.add(units);
+    }
+
+    /**
+     * Takes a point-in-time copy of all metrics
+     * 
+     * @return The snapshot
+     */
+    public MetricsSnapshot snapshot() {
+        long[] failureCounts = new long[failures.length];
+        for (int i = 0; i < failures.length; i++) {
+            failureCounts[i] = failures[i].sum();
+        }
+        LatencyHistogram.Snapshot[] stages = new LatencyHistogram.Snapshot[stageLatency.length];
+        for (int i = 0; i < stageLatency.length; i++) {
+            stages[i] = stageLatency[i].snapshot();
+        }
+        return new MetricsSnapshot(successes.sum(), failureCounts, shipments.sum(), shippedUnits.sum(),
+                checkoutLatency.snapshot(), stages);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package service;
+import model.customer.Customer;
+import model.order.ShoppingCart;
+
+/**
+ * One order in a batch: a customer and the cart they are checking out
+ */
+public class CheckoutRequest {
+    private final Customer customer;
+    private final ShoppingCart cart;
+
+    /**
+     * Constructor for checkout request
+     * 
+     * @param customer The customer making the purchase
+     * @param cart     The shopping cart with items
+     */
+    public CheckoutRequest(Customer customer, ShoppingCart cart) {
+        if (customer == null) {
+            throw new IllegalArgumentException("Customer cannot be null");
+        }
+        if (cart == null) {
+            throw new IllegalArgumentException("Cart cannot be null");
+        }
+        this.customer = customer;
+        this.cart = cart;
+    }
+
+    // Getters
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public ShoppingCart getCart() {
+        return cart;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package service;
+import model.order.FailureReason;
+import model.order.Validation;
+
+/**
+ * Outcome of one order in a batch: success, or a typed failure with its message
+ */
+public class CheckoutResult {
+    private final CheckoutRequest request;
+    private final FailureReason failure;
+    private final long validation; // Packed failure, used to format the message on demand
+    private String message;
+
+    private CheckoutResult(CheckoutRequest request, FailureReason failure, long validation, String message) {
+        this.request = request;
+        this.failure = failure;
+        this.validation = validation;
+        this.message = message;
+    }
+
+    /**
+     * Creates a successful result
+     * 
+     * @param request The processed request
+     * @return The result
+     */
+    public static CheckoutResult success(CheckoutRequest request) {
+        return new CheckoutResult(request, null, Validation.OK, null);
+    }
+
+    /**
+     * Creates a failed result from a packed validation failure. The message is
+     * only formatted when {@link #getMessage()} is called.
+     * 
+     * @param request    The rejected request
+     * @param validation The packed failure returned by the checkout
+     * @return The result
+     */
+    public static CheckoutResult failure(CheckoutRequest request, long validation) {
+        return new CheckoutResult(request, Validation.reason(validation), validation, null);
+    }
+
+    /**
+     * Creates a failed result
+     * 
+     * @param request The rejected request
+     * @param failure The reason it was rejected
+     * @param message The detail message
+     * @return The result
+     */
+    public static CheckoutResult failure(CheckoutRequest request, FailureReason failure, String message) {
+        return new CheckoutResult(request, failure, Validation.OK, message);
+    }
+
+    /**
+     * Checks if the checkout went through
+     * 
+     * @return true if the order was placed
+     */
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    // Getters
+    public CheckoutRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * Gets the failure reason
+     * 
+     * @return The reason, or null if the checkout succeeded
+     */
+    public FailureReason getFailure() {
+        return failure;
+    }
+
+    /**
+     * Gets the failure message, formatting it on first use
+     * 
+     * @return The message, or null if the checkout succeeded
+     */
+    public String getMessage() {
+        if (message == null && !Validation.isOk(validation)) {
+            message = request.getCart().describeFailure(validation);
+        }
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess() ? "SUCCESS" : String.format("%s: %s", failure, getMessage());
+    }
+}
\ No newline at end of file
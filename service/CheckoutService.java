@@ -2,19 +2,114 @@ package service;
 import java.util.List;
 import model.customer.Customer;
 import model.order.CartItem;
+import model.order.FailureReason;
 import model.order.ShoppingCart;
-import model.shipping.Shippable;
+import model.order.StockReservation;
+import model.order.Validation;
+import model.payment.Account;
+import model.payment.Money;
+import model.shipping.Shipment;
+import model.shipping.ShippingQuote;
 
 public class CheckoutService {
     private ShippingService shippingService;
+    private final ReceiptSink receiptSink;
+    private final CheckoutMetrics metrics;
+    private final CheckoutJournal journal;
+    private final ShipmentDispatcher shipmentDispatcher;
+    private final PromotionEngine promotions; // Null when no promotions apply
 
     /**
-     * Constructor with dependency injection
+     * Constructor with dependency injection, printing receipts to standard output
      * 
      * @param shippingService The shipping service to use
      */
     public CheckoutService(ShippingService shippingService) {
+        this(shippingService, new ConsoleReceiptSink());
+    }
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param shippingService The shipping service to use
+     * @param receiptSink     The sink that receives checkout receipts
+     */
+    public CheckoutService(ShippingService shippingService, ReceiptSink receiptSink) {
+        this(shippingService, receiptSink, new CheckoutMetrics());
+    }
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param shippingService The shipping service to use
+     * @param receiptSink     The sink that receives checkout receipts
+     * @param metrics         The registry that checkout outcomes and latencies
+     *                        are recorded into
+     */
+    public CheckoutService(ShippingService shippingService, ReceiptSink receiptSink, CheckoutMetrics metrics) {
+        this(shippingService, receiptSink, metrics, null);
+    }
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param shippingService The shipping service to use
+     * @param receiptSink     The sink that receives checkout receipts
+     * @param metrics         The registry that checkout outcomes and latencies
+     *                        are recorded into
+     * @param journal         The recovered journal that every placed order is
+     *                        written to before its receipt, or null to keep
+     *                        orders in memory only
+     */
+    public CheckoutService(ShippingService shippingService, ReceiptSink receiptSink, CheckoutMetrics metrics,
+            CheckoutJournal journal) {
+        this(shippingService, receiptSink, metrics, journal, null);
+    }
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param shippingService    The shipping service to use
+     * @param receiptSink        The sink that receives checkout receipts
+     * @param metrics            The registry that checkout outcomes and
+     *                           latencies are recorded into
+     * @param journal            The recovered journal that every placed order is
+     *                           written to before its receipt, or null to keep
+     *                           orders in memory only
+     * @param shipmentDispatcher The queue that shipments are handed to, or null
+     *                           to process each shipment during its checkout
+     */
+    public CheckoutService(ShippingService shippingService, ReceiptSink receiptSink, CheckoutMetrics metrics,
+            CheckoutJournal journal, ShipmentDispatcher shipmentDispatcher) {
+        this(shippingService, receiptSink, metrics, journal, shipmentDispatcher, null);
+    }
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param shippingService    The shipping service to use
+     * @param receiptSink        The sink that receives checkout receipts
+     * @param metrics            The registry that checkout outcomes and
+     *                           latencies are recorded into
+     * @param journal            The recovered journal, or null
+     * @param shipmentDispatcher The queue that shipments are handed to, or null
+     * @param promotions         The engine that discounts the order and waives
+     *                           shipping, or null to charge full price
+     */
+    public CheckoutService(ShippingService shippingService, ReceiptSink receiptSink, CheckoutMetrics metrics,
+            CheckoutJournal journal, ShipmentDispatcher shipmentDispatcher, PromotionEngine promotions) {
+        if (receiptSink == null) {
+            throw new IllegalArgumentException("Receipt sink cannot be null");
+        }
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics cannot be null");
+        }
         this.shippingService = shippingService;
+        this.receiptSink = receiptSink;
+        this.metrics = metrics;
+        this.journal = journal;
+        this.shipmentDispatcher = shipmentDispatcher;
+        this.promotions = promotions;
     }
 
     /**
@@ -22,80 +117,234 @@ public class CheckoutService {
      * 
      * @param customer The customer making the purchase
      * @param cart     The shopping cart with items
-     * @throws IllegalStateException if checkout cannot be processed
+     * @throws CheckoutException if checkout cannot be processed
      */
     public void processCheckout(Customer customer, ShoppingCart cart) {
+        long result = tryCheckout(customer, cart);
+        if (!Validation.isOk(result)) {
+            throw new CheckoutException(Validation.reason(result), cart.describeFailure(result));
+        }
+    }
+
+    /**
+     * Processes checkout for a customer with their cart, reporting a rejected
+     * checkout through the result instead of an exception. On rejection nothing
+     * is charged or reserved and the cart is left untouched, so
+     * {@link ShoppingCart#describeFailure(long)} can format the message later.
+     * 
+     * @param customer The customer making the purchase
+     * @param cart     The shopping cart with items
+     * @return {@link Validation#OK} if the order was placed, or the packed failure
+     */
+    public long tryCheckout(Customer customer, ShoppingCart cart) {
+        CheckoutEvent event = new CheckoutEvent();
+        if (event.isEnabled()) {
+            // Capture the cart before a successful checkout clears it
+            event.lineCount = cart.getLineCount();
+            event.unitCount = cart.getUnitCount();
+            event.shippableWeight = cart.getShippableWeight();
+        }
+        event.begin();
+        StageTimer timer = new StageTimer();
+        long result;
+        try {
+            result = checkout(customer, cart, timer);
+        } catch (RuntimeException e) {
+            timer.recordStages(metrics);
+            metrics.recordFailure(FailureReason.UNEXPECTED_ERROR, timer.elapsedNanos());
+            event.complete(timer, FailureReason.UNEXPECTED_ERROR.name());
+            throw e;
+        }
+        timer.recordStages(metrics);
+        event.complete(timer, Validation.isOk(result) ? "OK" : Validation.reason(result).name());
+        if (Validation.isOk(result)) {
+            metrics.recordSuccess(timer.elapsedNanos());
+        } else {
+            metrics.recordFailure(Validation.reason(result), timer.elapsedNanos());
+        }
+        return result;
+    }
+
+    /**
+     * Runs the checkout stages, charging each to the timer
+     * 
+     * @param customer The customer making the purchase
+     * @param cart     The shopping cart with items
+     * @param timer    The timer for this checkout
+     * @return {@link Validation#OK} if the order was placed, or the packed failure
+     */
+    private long checkout(Customer customer, ShoppingCart cart, StageTimer timer) {
         // Validate preconditions
-        validateCheckoutCart(cart);
+        long result = validateCheckoutCart(cart);
+        timer.lap(CheckoutStage.VALIDATE);
+        if (!Validation.isOk(result)) {
+            return result;
+        }
 
         // Calculate amounts
         double subtotal = cart.calculateSubtotal();
-        List<Shippable> shippableItems = cart.getShippableItems();
-        double shippingFee = shippingService.calculateShippingCost(shippableItems);
-        double totalAmount = subtotal + shippingFee;
+        double discount = promotions == null ? 0 : promotions.calculateDiscount(cart);
+        timer.lap(CheckoutStage.SUBTOTAL);
+        Shipment shipment = cart.getShipment();
+        // Priced once; the shipment notice shows these same parcels and prices
+        ShippingQuote shippingQuote = shippingService.quoteShipment(shipment, customer.getShippingAddress());
+        double shippingFee = promotions != null && promotions.qualifiesForFreeShipping(cart)
+                ? 0
+                : shippingQuote.getCost();
+        double totalAmount = subtotal - discount + shippingFee;
+        timer.lap(CheckoutStage.SHIPPING);
 
-        // Check customer balance
-        if (!customer.hasSufficientBalance(totalAmount)) {
-            throw new IllegalStateException("Insufficient customer balance");
+        // Stock and balance changes must reach the journal before a compaction
+        // can snapshot them, so they happen inside its mutation section
+        if (journal != null) {
+            journal.beginMutation();
         }
+        long totalMinorUnits = Money.toMinorUnits(totalAmount);
+        try {
+            // Reserve every line at once so no other buyer can take the stock
+            // between validation and payment
+            StockReservation reservation = cart.reserveStock();
+            timer.lap(CheckoutStage.INVENTORY);
+            if (!reservation.isComplete()) {
+                return Validation.failure(FailureReason.OUT_OF_STOCK,
+                        cart.indexOf(reservation.getFailedItem().getProduct()));
+            }
+
+            // Check and charge the balance in one atomic step
+            Account account = customer.getAccount();
+            boolean charged = account.tryDebit(totalMinorUnits);
+            timer.lap(CheckoutStage.PAYMENT);
+            if (!charged) {
+                reservation.release();
+                timer.lap(CheckoutStage.INVENTORY);
+                return Validation.failure(FailureReason.INSUFFICIENT_BALANCE, Validation.NO_LINE);
+            }
+
+            // Only make the sale final once the order survives a crash; the wait
+            // is shared with every other order in the same group commit
+            if (journal != null) {
+                try {
+                    journal.append(customer, totalMinorUnits, cart.getItems()).join();
+                } catch (RuntimeException e) {
+                    account.credit(totalMinorUnits);
+                    reservation.release();
+                    timer.lap(CheckoutStage.JOURNAL);
+                    return Validation.failure(FailureReason.NOT_RECORDED, Validation.NO_LINE);
+                }
+                timer.lap(CheckoutStage.JOURNAL);
+            }
 
-        // Process shipment if there are shippable items
-        if (!shippableItems.isEmpty()) {
-            shippingService.processShipment(shippableItems);
+            // Update inventory
+            reservation.commit();
+            timer.lap(CheckoutStage.INVENTORY);
+        } finally {
+            if (journal != null) {
+                journal.endMutation();
+            }
         }
 
-        // Process payment and update inventory
-        customer.deductBalance(totalAmount);
-        cart.processCheckout();
+        // Process shipment if there are shippable items, or queue it for the
+        // dispatcher and move on. The order is recorded by now, so a shipment
+        // that fails here, or later on the dispatcher, cancels it through the
+        // journal.
+        if (!shipment.isEmpty()) {
+            List<CartItem> lines = cart.getItems();
+            try {
+                if (shipmentDispatcher != null) {
+                    shipmentDispatcher.dispatch(shippingQuote, () -> cancelOrder(customer, totalMinorUnits, lines));
+                } else {
+                    shippingService.processShipment(shippingQuote);
+                }
+            } catch (RuntimeException e) {
+                cancelOrder(customer, totalMinorUnits, lines);
+                throw e;
+            }
+            timer.lap(CheckoutStage.SHIPPING);
+        }
 
         // Display checkout receipt
-        displayCheckoutReceipt(cart, subtotal, shippingFee, totalAmount, customer.getBalance());
+        displayCheckoutReceipt(cart, subtotal, discount, shippingFee, totalAmount, customer.getBalance());
 
         // Clear cart after successful checkout
         cart.clear();
+        timer.lap(CheckoutStage.RECEIPT);
+        return Validation.OK;
+    }
+
+    /**
+     * Reverses a committed order: returns its units to stock and refunds the
+     * customer, recording the cancellation in the journal if there is one
+     * 
+     * @param customer         The customer to refund
+     * @param refundMinorUnits The amount charged for the order
+     * @param lines            The lines of the order
+     */
+    private void cancelOrder(Customer customer, long refundMinorUnits, List<CartItem> lines) {
+        if (journal != null) {
+            journal.cancelOrder(customer, refundMinorUnits, lines);
+            return;
+        }
+        for (CartItem line : lines) {
+            line.getProduct().restock(line.getQuantity());
+        }
+        customer.getAccount().credit(refundMinorUnits);
+    }
+
+    /**
+     * Gets the registry this service records into
+     * 
+     * @return The checkout metrics
+     */
+    public CheckoutMetrics getMetrics() {
+        return metrics;
     }
 
     /**
      * Validates all preconditions for checkout cart
      * 
-     * @param customer The customer
-     * @param cart     The shopping cart
-     * @throws IllegalStateException if any precondition fails
+     * @param cart The shopping cart
+     * @return {@link Validation#OK}, or the packed failure
      */
-    private void validateCheckoutCart(ShoppingCart cart) {
+    private long validateCheckoutCart(ShoppingCart cart) {
         if (cart.isEmpty()) {
-            throw new IllegalStateException("Cart is empty");
+            return Validation.failure(FailureReason.EMPTY_CART, Validation.NO_LINE);
         }
 
-        cart.validateAvailability();
+        return cart.checkAvailability();
     }
 
     /**
-     * Displays the checkout receipt to console
+     * Formats the checkout receipt and writes it to the receipt sink
      * 
      * @param cart             The shopping cart
      * @param subtotal         The subtotal amount
+     * @param discount         The promotion discount, 0 if none applied
      * @param shippingFee      The shipping fee
      * @param totalAmount      The total amount paid
      * @param remainingBalance The customer's remaining balance
      */
-    private void displayCheckoutReceipt(ShoppingCart cart, double subtotal,
+    private void displayCheckoutReceipt(ShoppingCart cart, double subtotal, double discount,
             double shippingFee, double totalAmount,
             double remainingBalance) {
-        System.out.println("** Checkout receipt **");
+        ReceiptBuffer receipt = ReceiptBuffer.acquire();
+        receipt.line("** Checkout receipt **");
 
         // Display each item with quantity and total price
         for (CartItem item : cart.getItems()) {
-            System.out.printf("%dx %s %.0f%n",
+            receipt.format("%dx %s %.0f%n",
                     item.getQuantity(),
                     item.getProduct().getName(),
                     item.getTotalPrice());
         }
 
-        System.out.println("----------------------");
-        System.out.printf("Subtotal %.0f%n", subtotal);
-        System.out.printf("Shipping %.0f%n", shippingFee);
-        System.out.printf("Amount %.0f%n", totalAmount);
-        System.out.printf("Customer balance after payment: %.0f%n", remainingBalance);
+        receipt.line("----------------------");
+        receipt.format("Subtotal %.0f%n", subtotal);
+        if (discount > 0) {
+            receipt.format("Discount %.0f%n", discount);
+        }
+        receipt.format("Shipping %.0f%n", shippingFee);
+        receipt.format("Amount %.0f%n", totalAmount);
+        receipt.format("Customer balance after payment: %.0f%n", remainingBalance);
+        receiptSink.write(receipt.text());
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package service;
+
+/**
+ * Stages of a checkout that are timed separately
+ */
+public enum CheckoutStage {
+    VALIDATE,
+    SUBTOTAL,
+    SHIPPING,
+    INVENTORY,
+    PAYMENT,
+    JOURNAL,
+    RECEIPT
+}
\ No newline at end of file
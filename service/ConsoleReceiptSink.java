@@ -0,0 +1,35 @@
+package service;
+import java.io.PrintStream;
+
+/**
+ * Default sink that prints each document with a single write, so a receipt
+ * costs one lock on the stream instead of one per line.
+ */
+public class ConsoleReceiptSink implements ReceiptSink {
+    private final PrintStream out;
+
+    /**
+     * Constructor for a sink printing to standard output
+     */
+    public ConsoleReceiptSink() {
+        this(System.out);
+    }
+
+    /**
+     * Constructor for a sink printing to the given stream
+     * 
+     * @param out The stream to print to
+     */
+    public ConsoleReceiptSink(PrintStream out) {
+        if (out == null) {
+            throw new IllegalArgumentException("Output stream cannot be null");
+        }
+        this.out = out;
+    }
+
+    @Override
+    public void write(CharSequence document) {
+        out.append(document);
+        out.flush();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,131 @@
+package service;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with power-of-two buckets. Bucket {@code i} counts values
+ * in {@code [2^(i-1), 2^i)} nanoseconds (bucket 0 counts zero), which keeps
+ * the relative error under 2x over the whole range with only 64 counters.
+ * Every counter is striped, so recording from many threads does not contend.
+ */
+public class LatencyHistogram {
+    static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructor for an empty histogram
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one measurement
+     * 
+     * @param nanos The measured duration in nanoseconds (negative counts as zero)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets[bucketOf(value)].increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Takes a point-in-time copy of the histogram
+     * 
+     * @return The snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, totalNanos.sum(), maxNanos.get());
+    }
+
+    static int bucketOf(long nanos) {
+        return 64 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    /**
+     * Gets the largest value counted by a bucket
+     * 
+     * @param bucket The bucket index
+     * @return The inclusive upper bound in nanoseconds
+     */
+    static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : (bucket == 63 ? Long.MAX_VALUE : (1L << bucket) - 1);
+    }
+
+    /**
+     * Immutable copy of a histogram's counters
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * Estimates a percentile as the upper bound of the bucket it falls in
+         * 
+         * @param percentile The percentile, between 0 and 100
+         * @return The estimated latency in nanoseconds, at most the recorded maximum
+         */
+        public long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= Math.max(1, rank)) {
+                    return Math.min(upperBound(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        /**
+         * Gets the number of values counted by a bucket
+         * 
+         * @param bucket The bucket index, 0 to 63
+         * @return The bucket count
+         */
+        public long getBucketCount(int bucket) {
+            return counts[bucket];
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package service;
+import model.order.FailureReason;
+
+/**
+ * Immutable copy of {@link CheckoutMetrics}, with a text export in the
+ * Prometheus exposition format
+ */
+public class MetricsSnapshot {
+    private final long successes;
+    private final long[] failures;
+    private final long shipments;
+    private final long shippedUnits;
+    private final LatencyHistogram.Snapshot checkoutLatency;
+    private final LatencyHistogram.Snapshot[] stageLatency;
+
+    MetricsSnapshot(long successes, long[] failures, long shipments, long shippedUnits,
+            LatencyHistogram.Snapshot checkoutLatency, LatencyHistogram.Snapshot[] stageLatency) {
+        this.successes = successes;
+        this.failures = failures;
+        this.shipments = shipments;
+        this.shippedUnits = shippedUnits;
+        this.checkoutLatency = checkoutLatency;
+        this.stageLatency = stageLatency;
+    }
+
+    public long getSuccesses() {
+        return successes;
+    }
+
+    /**
+     * Gets the number of checkouts rejected for a reason
+     * 
+     * @param reason The failure reason
+     * @return The failure count
+     */
+    public long getFailures(FailureReason reason) {
+        return failures[reason.ordinal()];
+    }
+
+    public long getShipments() {
+        return shipments;
+    }
+
+    public long getShippedUnits() {
+        return shippedUnits;
+    }
+
+    public LatencyHistogram.Snapshot getCheckoutLatency() {
+        return checkoutLatency;
+    }
+
+    /**
+     * Gets the latency histogram of one stage
+     * 
+     * @param stage The checkout stage
+     * @return The stage histogram
+     */
+    public LatencyHistogram.Snapshot getStageLatency(CheckoutStage stage) {
+        return stageLatency[stage.ordinal()];
+    }
+
+    /**
+     * Exports all metrics in the Prometheus text exposition format
+     * 
+     * @return The exported metrics
+     */
+    public String export() {
+        StringBuilder out = new StringBuilder(4096);
+        out.append("# TYPE checkout_success_total counter\n");
+        out.append("checkout_success_total ").append(successes).append('\n');
+        out.append("# TYPE checkout_failure_total counter\n");
+        for (FailureReason reason : FailureReason.values()) {
+            out.append("checkout_failure_total{reason=\"").append(reason).append("\"} ")
+                    .append(failures[reason.ordinal()]).append('\n');
+        }
+        out.append("# TYPE shipment_total counter\n");
+        out.append("shipment_total ").append(shipments).append('\n');
+        out.append("# TYPE shipment_units_total counter\n");
+        out.append("shipment_units_total ").append(shippedUnits).append('\n');
+        out.append("# TYPE checkout_latency_nanoseconds histogram\n");
+        appendHistogram(out, "total", checkoutLatency);
+        for (CheckoutStage stage : CheckoutStage.values()) {
+            appendHistogram(out, stage.name().toLowerCase(), stageLatency[stage.ordinal()]);
+        }
+        return out.toString();
+    }
+
+    private static void appendHistogram(StringBuilder out, String stage, LatencyHistogram.Snapshot histogram) {
+        long cumulative = 0;
+        int highest = LatencyHistogram.bucketOf(histogram.getMaxNanos());
+        for (int i = 0; i <= highest && i < LatencyHistogram.BUCKETS - 1; i++) {
+            cumulative += histogram.getBucketCount(i);
+            out.append("checkout_latency_nanoseconds_bucket{stage=\"").append(stage)
+                    .append("\",le=\"").append(LatencyHistogram.upperBound(i)).append("\"} ")
+                    .append(cumulative).append('\n');
+        }
+        out.append("checkout_latency_nanoseconds_bucket{stage=\"").append(stage).append("\",le=\"+Inf\"} ")
+                .append(histogram.getCount()).append('\n');
+        out.append("checkout_latency_nanoseconds_sum{stage=\"").append(stage).append("\"} ")
+                .append(histogram.getTotalNanos()).append('\n');
+        out.append("checkout_latency_nanoseconds_count{stage=\"").append(stage).append("\"} ")
+                .append(histogram.getCount()).append('\n');
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Checkouts: %d ok, p50 %dns, p99 %dns, max %dns",
+                successes, checkoutLatency.percentile(50), checkoutLatency.percentile(99),
+                checkoutLatency.getMaxNanos());
+    }
+}
\ No newline at end of file
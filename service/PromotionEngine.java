@@ -0,0 +1,265 @@
+package service;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import model.order.CartItem;
+import model.order.CartListener;
+import model.order.ShoppingCart;
+import model.payment.Money;
+import model.product.Product;
+import model.promotion.BundlePromotion;
+import model.promotion.FreeShippingPromotion;
+import model.promotion.LinePromotion;
+import model.promotion.Promotion;
+
+/**
+ * Evaluates the active promotions against shopping carts.
+ * 
+ * The rules are indexed once, when the engine is built: line promotions by
+ * product and by product class, bundles by each of their products, and the
+ * free-shipping thresholds folded into the lowest one. Each cart's evaluation
+ * is cached against its version. The engine listens to the cart, so after a
+ * change only the changed lines are evaluated again, and bundles only when a
+ * line they contain changed, however many rules are active.
+ * 
+ * Each line gets the largest of its line discounts. Bundles are then applied
+ * greedily, the one saving most per set first, against those discounted
+ * prices (a line discount spread evenly over the line's units); every set
+ * uses up its units, so no unit counts toward two bundles. The cached state of a cart is only safe to use from the
+ * thread that uses the cart, as is the cart itself.
+ */
+public class PromotionEngine {
+    private static final LinePromotion[] NO_LINE_RULES = new LinePromotion[0];
+    private static final BundlePromotion[] NO_BUNDLES = new BundlePromotion[0];
+
+    private final Map<Product, LinePromotion[]> lineRulesByProduct = new HashMap<>();
+    private final List<LinePromotion> classRules = new ArrayList<>();
+    private final ClassValue<LinePromotion[]> lineRulesByClass = new ClassValue<>() {
+        @Override
+        protected LinePromotion[] computeValue(Class<?> type) {
+            List<LinePromotion> matching = new ArrayList<>();
+            for (LinePromotion rule : classRules) {
+                if (rule.getProductClass().isAssignableFrom(type)) {
+                    matching.add(rule);
+                }
+            }
+            return matching.isEmpty() ? NO_LINE_RULES : matching.toArray(NO_LINE_RULES);
+        }
+    };
+    private final Map<Product, BundlePromotion[]> bundlesByProduct = new HashMap<>();
+    private final Map<BundlePromotion, Integer> bundleRanks = new HashMap<>(); // Registration order, to break ties
+    private final long freeShippingThreshold; // In minor units, Long.MAX_VALUE without a free-shipping rule
+    private final Map<ShoppingCart, CartPromotions> carts = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Constructor that compiles the active promotions
+     * 
+     * @param promotions The active promotions
+     * @throws IllegalArgumentException if a promotion is of an unknown kind
+     */
+    public PromotionEngine(List<? extends Promotion> promotions) {
+        Map<Product, List<LinePromotion>> productRules = new HashMap<>();
+        Map<Product, List<BundlePromotion>> bundles = new HashMap<>();
+        long threshold = Long.MAX_VALUE;
+        for (Promotion promotion : promotions) {
+            if (promotion instanceof LinePromotion) {
+                LinePromotion rule = (LinePromotion) promotion;
+                if (rule.getProduct() != null) {
+                    productRules.computeIfAbsent(rule.getProduct(), product -> new ArrayList<>()).add(rule);
+                } else {
+                    classRules.add(rule);
+                }
+            } else if (promotion instanceof BundlePromotion) {
+                BundlePromotion bundle = (BundlePromotion) promotion;
+                bundleRanks.putIfAbsent(bundle, bundleRanks.size());
+                for (int i = 0; i < bundle.getComponentCount(); i++) {
+                    bundles.computeIfAbsent(bundle.getProduct(i), product -> new ArrayList<>()).add(bundle);
+                }
+            } else if (promotion instanceof FreeShippingPromotion) {
+                threshold = Math.min(threshold, ((FreeShippingPromotion) promotion).getThreshold());
+            } else {
+                throw new IllegalArgumentException("Unknown promotion " + promotion);
+            }
+        }
+        productRules.forEach((product, rules) -> lineRulesByProduct.put(product, rules.toArray(NO_LINE_RULES)));
+        bundles.forEach((product, rules) -> bundlesByProduct.put(product, rules.toArray(NO_BUNDLES)));
+        freeShippingThreshold = threshold;
+    }
+
+    /**
+     * Calculates the discount on a cart
+     * 
+     * @param cart The cart
+     * @return The discount, at most the cart subtotal
+     */
+    public double calculateDiscount(ShoppingCart cart) {
+        return Money.toMajorUnits(calculateDiscountMinorUnits(cart));
+    }
+
+    /**
+     * Checks whether a cart ships free, judged on its discounted subtotal
+     * 
+     * @param cart The cart
+     * @return true if a free-shipping promotion applies
+     */
+    public boolean qualifiesForFreeShipping(ShoppingCart cart) {
+        if (freeShippingThreshold == Long.MAX_VALUE) {
+            return false;
+        }
+        long subtotal = Money.toMinorUnits(cart.calculateSubtotal());
+        return subtotal - calculateDiscountMinorUnits(cart) >= freeShippingThreshold;
+    }
+
+    /**
+     * Gets the discount on a cart, from its cached evaluation if the cart has
+     * not changed since
+     * 
+     * @param cart The cart
+     * @return The discount in minor units, at most the cart subtotal
+     */
+    private long calculateDiscountMinorUnits(ShoppingCart cart) {
+        CartPromotions state = carts.computeIfAbsent(cart, this::track);
+        long version = cart.getVersion();
+        if (state.evaluatedVersion != version) {
+            state.evaluate(cart);
+            state.evaluatedVersion = version;
+        }
+        return Math.min(state.lineTotal + state.bundleTotal, Money.toMinorUnits(cart.calculateSubtotal()));
+    }
+
+    /**
+     * Starts caching the evaluation of a cart; every line it already has
+     * must be evaluated once
+     */
+    private CartPromotions track(ShoppingCart cart) {
+        CartPromotions state = new CartPromotions();
+        for (CartItem item : cart.getItems()) {
+            state.changedProducts.add(item.getProduct());
+        }
+        cart.addListener(state);
+        return state;
+    }
+
+    /**
+     * Calculates the largest line discount for one line
+     */
+    private long bestLineDiscount(CartItem item) {
+        long unitPrice = Money.toMinorUnits(item.getUnitPrice());
+        int quantity = item.getQuantity();
+        long best = 0;
+        for (LinePromotion rule : lineRulesByProduct.getOrDefault(item.getProduct(), NO_LINE_RULES)) {
+            best = Math.max(best, rule.discount(unitPrice, quantity));
+        }
+        for (LinePromotion rule : lineRulesByClass.get(item.getProduct().getClass())) {
+            best = Math.max(best, rule.discount(unitPrice, quantity));
+        }
+        return Math.min(best, unitPrice * quantity);
+    }
+
+    /**
+     * Applies the bundles contained in a cart greedily by saving per set,
+     * taking each set's units away from the bundles applied after it
+     * 
+     * @param cart          The cart
+     * @param lineDiscounts The discount already given on each line
+     * @return The bundle discount in minor units
+     */
+    private long applyBundles(ShoppingCart cart, Map<Product, Long> lineDiscounts) {
+        Map<Product, Integer> remaining = new HashMap<>();
+        Map<Product, Double> netUnitPrices = new HashMap<>();
+        Set<BundlePromotion> candidates = new HashSet<>();
+        for (CartItem item : cart.getItems()) {
+            BundlePromotion[] bundles = bundlesByProduct.getOrDefault(item.getProduct(), NO_BUNDLES);
+            if (bundles.length == 0) {
+                continue;
+            }
+            long lineTotal = Money.toMinorUnits(item.getUnitPrice()) * item.getQuantity();
+            long lineNet = lineTotal - lineDiscounts.getOrDefault(item.getProduct(), 0L);
+            remaining.put(item.getProduct(), item.getQuantity());
+            netUnitPrices.put(item.getProduct(), (double) lineNet / item.getQuantity());
+            Collections.addAll(candidates, bundles);
+        }
+
+        Map<BundlePromotion, Double> savings = new HashMap<>();
+        for (BundlePromotion bundle : candidates) {
+            double price = 0; // One set at the line-discounted prices
+            for (int i = 0; i < bundle.getComponentCount() && price >= 0; i++) {
+                Double unitPrice = netUnitPrices.get(bundle.getProduct(i));
+                price = unitPrice == null ? -1 : price + unitPrice * bundle.getQuantity(i);
+            }
+            if (price - bundle.getBundlePrice() > 0) {
+                savings.put(bundle, price - bundle.getBundlePrice());
+            }
+        }
+        List<BundlePromotion> order = new ArrayList<>(savings.keySet());
+        order.sort(Comparator.comparingDouble((BundlePromotion bundle) -> savings.get(bundle)).reversed()
+                .thenComparing(bundleRanks::get));
+
+        double discount = 0;
+        for (BundlePromotion bundle : order) {
+            int sets = Integer.MAX_VALUE;
+            for (int i = 0; i < bundle.getComponentCount(); i++) {
+                sets = Math.min(sets, remaining.get(bundle.getProduct(i)) / bundle.getQuantity(i));
+            }
+            if (sets == 0) {
+                continue;
+            }
+            for (int i = 0; i < bundle.getComponentCount(); i++) {
+                remaining.merge(bundle.getProduct(i), -sets * bundle.getQuantity(i), Integer::sum);
+            }
+            discount += sets * savings.get(bundle);
+        }
+        return Math.round(discount);
+    }
+
+    /**
+     * Cached evaluation of one cart, kept up to date from its change events
+     */
+    private final class CartPromotions implements CartListener {
+        private final Map<Product, Long> lineDiscounts = new HashMap<>();
+        private final Set<Product> changedProducts = new HashSet<>();
+        private boolean bundlesChanged;
+        private long lineTotal;
+        private long bundleTotal;
+        private long evaluatedVersion = -1;
+
+        @Override
+        public void lineChanged(ShoppingCart cart, Product product) {
+            changedProducts.add(product);
+        }
+
+        @Override
+        public void cartCleared(ShoppingCart cart) {
+            lineDiscounts.clear();
+            changedProducts.clear();
+            bundlesChanged = false;
+            lineTotal = 0;
+            bundleTotal = 0;
+        }
+
+        /**
+         * Evaluates the rules affected by the lines changed since the last evaluation
+         */
+        void evaluate(ShoppingCart cart) {
+            for (Product product : changedProducts) {
+                CartItem item = cart.getItem(product);
+                long discount = item == null ? 0 : bestLineDiscount(item);
+                Long previous = discount == 0 ? lineDiscounts.remove(product) : lineDiscounts.put(product, discount);
+                lineTotal += discount - (previous == null ? 0 : previous);
+                bundlesChanged |= bundlesByProduct.containsKey(product);
+            }
+            changedProducts.clear();
+            // Bundles compete for shared units, so they are applied again together
+            if (bundlesChanged) {
+                bundleTotal = applyBundles(cart, lineDiscounts);
+                bundlesChanged = false;
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,71 @@
+package service;
+import java.util.Formatter;
+
+/**
+ * Per-thread reusable buffer that documents are formatted into before being
+ * handed to a {@link ReceiptSink}, so formatting a receipt allocates no new
+ * builder.
+ */
+final class ReceiptBuffer {
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024; // Drop buffers grown by huge orders
+    private static final ThreadLocal<ReceiptBuffer> BUFFERS = ThreadLocal.withInitial(ReceiptBuffer::new);
+
+    private StringBuilder text;
+    private Formatter formatter;
+
+    private ReceiptBuffer() {
+        reset();
+    }
+
+    /**
+     * Gets the calling thread's buffer, emptied for a new document
+     * 
+     * @return The buffer
+     */
+    static ReceiptBuffer acquire() {
+        ReceiptBuffer buffer = BUFFERS.get();
+        if (buffer.text.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer.reset();
+        } else {
+            buffer.text.setLength(0);
+        }
+        return buffer;
+    }
+
+    /**
+     * Appends a line of text followed by a line terminator
+     * 
+     * @param line The text to append
+     * @return This buffer
+     */
+    ReceiptBuffer line(String line) {
+        text.append(line).append(System.lineSeparator());
+        return this;
+    }
+
+    /**
+     * Appends formatted text, see {@link Formatter#format(String, Object...)}
+     * 
+     * @param format The format string
+     * @param args   The format arguments
+     * @return This buffer
+     */
+    ReceiptBuffer format(String format, Object... args) {
+        formatter.format(format, args);
+        return this;
+    }
+
+    /**
+     * Gets the formatted document, valid until the next call to acquire()
+     * 
+     * @return The buffered text
+     */
+    CharSequence text() {
+        return text;
+    }
+
+    private void reset() {
+        text = new StringBuilder(512);
+        formatter = new Formatter(text);
+    }
+}
\ No newline at end of file
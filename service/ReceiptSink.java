@@ -0,0 +1,17 @@
+package service;
+
+/**
+ * Destination for formatted checkout receipts and shipment notices.
+ * 
+ * Each call hands over one complete document. The document may be backed by
+ * a reused buffer, so implementations that keep it beyond the call must copy
+ * it first.
+ */
+public interface ReceiptSink {
+    /**
+     * Writes one complete receipt or notice
+     * 
+     * @param document The formatted document, including line terminators
+     */
+    void write(CharSequence document);
+}
\ No newline at end of file
@@ -0,0 +1,355 @@
+package service;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import model.shipping.Shipment;
+import model.shipping.ShippingQuote;
+
+/**
+ * Processes shipments in the background so checkout does not wait for them.
+ * 
+ * Checkouts hand their shipment to a bounded queue and return. Consumer
+ * threads collect shipments into batches, closing a batch when it reaches
+ * {@code maxBatchSize} or when {@code maxDelay} has passed since its first
+ * shipment, then group the batch by destination and process each group as
+ * one consolidated shipment. Shipments are priced when they are dispatched,
+ * and a consolidated shipment keeps every parcel at that price, so its notice
+ * matches what each order was charged.
+ * 
+ * When the queue is full, {@link #dispatch(String, Shipment)} blocks until a
+ * consumer makes room, so a burst of orders slows checkout down instead of
+ * piling up unbounded work. {@link #close()} stops accepting shipments and
+ * returns only after everything already accepted has been processed.
+ * 
+ * The order behind a queued shipment is already charged and recorded, so a
+ * failure cannot be reported back to its checkout. When a consolidated
+ * shipment fails, its shipments are retried one by one, so one bad shipment
+ * does not fail the others batched with it. Each shipment can be dispatched
+ * with a compensation that undoes its order, which runs on the consumer
+ * thread when the shipment still fails on its own; every failed shipment is
+ * then reported to the {@link ShipmentFailureHandler}.
+ */
+public class ShipmentDispatcher implements AutoCloseable {
+    private static final PendingShipment STOP = new PendingShipment(null, null); // One per consumer on close
+
+    private final ShippingService shippingService;
+    private final ShipmentFailureHandler failureHandler;
+    private final BlockingQueue<PendingShipment> queue;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final List<Thread> consumers = new ArrayList<>();
+    // Dispatchers hold the read side while checking for close and enqueueing,
+    // so nothing can be queued behind the stop markers
+    private final ReentrantReadWriteLock closeGate = new ReentrantReadWriteLock();
+    private final LongAdder processedCount = new LongAdder();
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private boolean closed; // Guarded by closeGate
+
+    /**
+     * Constructor with dependency injection; starts the consumer threads and
+     * reports failed shipments to standard error
+     * 
+     * @param shippingService The service that processes each consolidated shipment
+     * @param capacity        Maximum number of shipments waiting in the queue
+     * @param consumerCount   Number of consumer threads
+     * @param maxBatchSize    Maximum number of shipments in one batch
+     * @param maxDelay        Longest time a batch waits for more shipments
+     */
+    public ShipmentDispatcher(ShippingService shippingService, int capacity, int consumerCount,
+            int maxBatchSize, Duration maxDelay) {
+        this(shippingService, capacity, consumerCount, maxBatchSize, maxDelay,
+                (destination, shipment, cause) -> System.err
+                        .println("Shipment to " + destination + " failed: " + cause.getMessage()));
+    }
+
+    /**
+     * Constructor with dependency injection; starts the consumer threads
+     * 
+     * @param shippingService The service that processes each consolidated shipment
+     * @param capacity        Maximum number of shipments waiting in the queue
+     * @param consumerCount   Number of consumer threads
+     * @param maxBatchSize    Maximum number of shipments in one batch
+     * @param maxDelay        Longest time a batch waits for more shipments
+     * @param failureHandler  Receives every shipment that failed
+     */
+    public ShipmentDispatcher(ShippingService shippingService, int capacity, int consumerCount,
+            int maxBatchSize, Duration maxDelay, ShipmentFailureHandler failureHandler) {
+        if (shippingService == null) {
+            throw new IllegalArgumentException("Shipping service cannot be null");
+        }
+        if (capacity <= 0 || consumerCount <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Capacity, consumer count and batch size must be positive");
+        }
+        if (maxDelay == null || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Maximum delay cannot be negative");
+        }
+        if (failureHandler == null) {
+            throw new IllegalArgumentException("Failure handler cannot be null");
+        }
+        this.shippingService = shippingService;
+        this.failureHandler = failureHandler;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        for (int i = 0; i < consumerCount; i++) {
+            Thread consumer = new Thread(this::consume, "shipment-dispatcher-" + i);
+            consumer.setDaemon(true);
+            consumers.add(consumer);
+            consumer.start();
+        }
+    }
+
+    /**
+     * Queues a shipment, waiting for room if the queue is full
+     * 
+     * @param destination Where the shipment goes; shipments to the same
+     *                    destination may be consolidated (null if unknown)
+     * @param shipment    The shipment to process
+     * @throws IllegalStateException if the dispatcher is closed, or the caller is
+     *                               interrupted while waiting
+     */
+    public void dispatch(String destination, Shipment shipment) {
+        if (shipment == null) {
+            throw new IllegalArgumentException("Shipment cannot be null");
+        }
+        dispatch(shippingService.quoteShipment(shipment, destination), null);
+    }
+
+    /**
+     * Queues a priced shipment with a compensation to run if it fails, waiting
+     * for room if the queue is full
+     * 
+     * @param quote        The shipment as it was priced, with its destination
+     * @param compensation Undoes the shipment's order if the shipment fails (null
+     *                     for none); runs on a dispatcher thread
+     * @throws IllegalStateException if the dispatcher is closed, or the caller is
+     *                               interrupted while waiting
+     */
+    public void dispatch(ShippingQuote quote, Runnable compensation) {
+        if (quote == null) {
+            throw new IllegalArgumentException("Shipment cannot be null");
+        }
+        closeGate.readLock().lock();
+        try {
+            requireOpen();
+            queue.put(new PendingShipment(quote, compensation));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room in the shipment queue", e);
+        } finally {
+            closeGate.readLock().unlock();
+        }
+    }
+
+    /**
+     * Queues a shipment, waiting at most the given time for room
+     * 
+     * @param destination Where the shipment goes (null if unknown)
+     * @param shipment    The shipment to process
+     * @param timeout     How long to wait for room
+     * @param unit        Unit of the timeout
+     * @return true if the shipment was queued, false if the queue stayed full
+     * @throws IllegalStateException if the dispatcher is closed, or the caller is
+     *                               interrupted while waiting
+     */
+    public boolean tryDispatch(String destination, Shipment shipment, long timeout, TimeUnit unit) {
+        if (shipment == null) {
+            throw new IllegalArgumentException("Shipment cannot be null");
+        }
+        PendingShipment pending = new PendingShipment(shippingService.quoteShipment(shipment, destination), null);
+        closeGate.readLock().lock();
+        try {
+            requireOpen();
+            return queue.offer(pending, timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for room in the shipment queue", e);
+        } finally {
+            closeGate.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of shipments waiting in the queue
+     * 
+     * @return The queue length
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public long getProcessedCount() {
+        return processedCount.sum();
+    }
+
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * Stops accepting shipments, processes everything already queued and
+     * waits for the consumer threads to finish
+     */
+    @Override
+    public void close() {
+        closeGate.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeGate.writeLock().unlock();
+        }
+        boolean interrupted = false;
+        for (int i = 0; i < consumers.size(); i++) {
+            while (true) {
+                try {
+                    queue.put(STOP);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true; // Draining must finish; remember and keep going
+                }
+            }
+        }
+        for (Thread consumer : consumers) {
+            while (consumer.isAlive()) {
+                try {
+                    consumer.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void requireOpen() {
+        if (closed) {
+            throw new IllegalStateException("Shipment dispatcher is closed");
+        }
+    }
+
+    private void consume() {
+        List<PendingShipment> batch = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                PendingShipment first = queue.take();
+                if (first == STOP) {
+                    return;
+                }
+                batch.add(first);
+                // Keep collecting until the batch is full or its time window closes
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    PendingShipment next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == STOP) {
+                        stopping = true;
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                continue; // Only close() stops a consumer, through its stop marker
+            }
+            processBatch(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Processes one batch as one consolidated shipment per destination
+     */
+    private void processBatch(List<PendingShipment> batch) {
+        Map<String, List<PendingShipment>> byDestination = new LinkedHashMap<>();
+        for (PendingShipment pending : batch) {
+            byDestination.computeIfAbsent(pending.quote.getDestination(), destination -> new ArrayList<>())
+                    .add(pending);
+        }
+        for (Map.Entry<String, List<PendingShipment>> group : byDestination.entrySet()) {
+            List<ShippingQuote> quotes = new ArrayList<>(group.getValue().size());
+            for (PendingShipment pending : group.getValue()) {
+                quotes.add(pending.quote);
+            }
+            if (quotes.size() == 1) {
+                processAlone(group.getValue().get(0));
+                continue;
+            }
+            try {
+                shippingService.processShipment(ShippingQuote.combine(group.getKey(), quotes));
+                processedCount.add(group.getValue().size());
+            } catch (RuntimeException e) {
+                // Find out which shipments fail on their own before undoing any order
+                for (PendingShipment pending : group.getValue()) {
+                    processAlone(pending);
+                }
+            }
+        }
+        batchCount.increment();
+    }
+
+    /**
+     * Processes one shipment by itself, compensating and reporting it if it fails
+     */
+    private void processAlone(PendingShipment pending) {
+        try {
+            shippingService.processShipment(pending.quote);
+            processedCount.increment();
+        } catch (RuntimeException e) {
+            failedCount.increment();
+            fail(pending, e);
+        }
+    }
+
+    /**
+     * Compensates one failed shipment and reports it. Neither step may stop the
+     * consumer thread, so their own failures are reported instead.
+     */
+    private void fail(PendingShipment pending, RuntimeException cause) {
+        RuntimeException reported = cause;
+        if (pending.compensation != null) {
+            try {
+                pending.compensation.run();
+            } catch (RuntimeException e) {
+                reported = new IllegalStateException("Shipment failed and could not be compensated", e);
+                reported.addSuppressed(cause);
+            }
+        }
+        try {
+            failureHandler.shipmentFailed(pending.quote.getDestination(), pending.quote.getShipment(), reported);
+        } catch (RuntimeException e) {
+            System.err.println("Shipment failure handler failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * A queued priced shipment with its compensation
+     */
+    private static final class PendingShipment {
+        final ShippingQuote quote;
+        final Runnable compensation;
+
+        PendingShipment(ShippingQuote quote, Runnable compensation) {
+            this.quote = quote;
+            this.compensation = compensation;
+        }
+    }
+}
\ No newline at end of file
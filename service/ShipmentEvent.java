@@ -0,0 +1,26 @@
+package service;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one processed shipment
+ */
+@Name("ecommerce.Shipment")
+@Label("Shipment")
+@Category({ "E-Commerce", "Shipping" })
+@Description("Processing of one shipment, including its notice")
+@StackTrace(false)
+class ShipmentEvent extends Event {
+    @Label("Lines")
+    int lineCount;
+
+    @Label("Units")
+    long unitCount;
+
+    @Label("Total Weight (kg)")
+    double totalWeight;
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package service;
+import model.shipping.Shipment;
+
+/**
+ * Receives the shipments a {@link ShipmentDispatcher} could not process.
+ * 
+ * The handler runs on a dispatcher thread once per failed shipment, after the
+ * shipment's compensation (if it was dispatched with one) has run, so it
+ * should hand slow work off rather than block.
+ */
+@FunctionalInterface
+public interface ShipmentFailureHandler {
+    /**
+     * Reports one shipment that failed
+     * 
+     * @param destination Where the shipment was going (null if unknown)
+     * @param shipment    The shipment as it was dispatched
+     * @param cause       Why processing failed
+     */
+    void shipmentFailed(String destination, Shipment shipment, RuntimeException cause);
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package service;
+import java.util.concurrent.atomic.AtomicReference;
+import model.shipping.ShippingRateTable;
+
+/**
+ * Holds the shipping rate table in effect. A new table is compiled off to the
+ * side and swapped in with one atomic write, so checkouts keep quoting
+ * without pausing; each quote reads the reference once and uses that table
+ * throughout.
+ */
+public class ShippingRateEngine {
+    private final AtomicReference<ShippingRateTable> table;
+
+    /**
+     * Constructor for an engine starting with the given table
+     * 
+     * @param table The initial rate table
+     */
+    public ShippingRateEngine(ShippingRateTable table) {
+        if (table == null) {
+            throw new IllegalArgumentException("Rate table cannot be null");
+        }
+        this.table = new AtomicReference<>(table);
+    }
+
+    /**
+     * Quotes the cost of shipping one package with the current table
+     * 
+     * @param destination Where the package goes, or null for the default zone
+     * @param weight      The package weight in kilograms
+     * @return The shipping cost
+     */
+    public double quote(String destination, double weight) {
+        return table.get().quote(destination, weight);
+    }
+
+    /**
+     * Replaces the rate table; quotes already in progress finish on the old one
+     * 
+     * @param newTable The table to use from now on
+     * @return The table that was replaced
+     */
+    public ShippingRateTable install(ShippingRateTable newTable) {
+        if (newTable == null) {
+            throw new IllegalArgumentException("Rate table cannot be null");
+        }
+        return table.getAndSet(newTable);
+    }
+
+    public ShippingRateTable getTable() {
+        return table.get();
+    }
+}
\ No newline at end of file
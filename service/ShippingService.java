@@ -1,23 +1,152 @@
 package service;
 import java.util.List;
+import model.shipping.Parcel;
+import model.shipping.ParcelPacker;
+import model.shipping.ShippingQuote;
+import model.shipping.ShippingRateTable;
 import model.shipping.Shippable;
+import model.shipping.Shipment;
+import model.shipping.ShipmentLine;
 
 public class ShippingService {
     private static final double SHIPPING_RATE_PER_KG = 2.0; // $2 per kg (Assumption, may not be correct)
 
+    private final ReceiptSink noticeSink;
+    private final CheckoutMetrics metrics; // Null when shipments are not counted
+    private final ParcelPacker parcelPacker; // Null when every shipment is one package
+    private final ShippingRateEngine rateEngine;
+
+    /**
+     * Constructor that prints shipment notices to standard output
+     */
+    public ShippingService() {
+        this(new ConsoleReceiptSink());
+    }
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param noticeSink The sink that receives shipment notices
+     */
+    public ShippingService(ReceiptSink noticeSink) {
+        this(noticeSink, null);
+    }
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param noticeSink The sink that receives shipment notices
+     * @param metrics    The registry that processed shipments are counted in,
+     *                   usually the one shared with the checkout service
+     */
+    public ShippingService(ReceiptSink noticeSink, CheckoutMetrics metrics) {
+        this(noticeSink, metrics, null);
+    }
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param noticeSink   The sink that receives shipment notices
+     * @param metrics      The registry that processed shipments are counted in,
+     *                     or null
+     * @param parcelPacker The packer that splits shipments into parcels under
+     *                     the carrier's weight limit, or null to ship each
+     *                     shipment as one package
+     */
+    public ShippingService(ReceiptSink noticeSink, CheckoutMetrics metrics, ParcelPacker parcelPacker) {
+        this(noticeSink, metrics, parcelPacker, new ShippingRateEngine(ShippingRateTable.flat(SHIPPING_RATE_PER_KG)));
+    }
+
+    /**
+     * Constructor with dependency injection
+     * 
+     * @param noticeSink   The sink that receives shipment notices
+     * @param metrics      The registry that processed shipments are counted in,
+     *                     or null
+     * @param parcelPacker The packer that splits shipments into parcels, or null
+     * @param rateEngine   The engine that prices each package by weight tier
+     *                     and destination zone
+     */
+    public ShippingService(ReceiptSink noticeSink, CheckoutMetrics metrics, ParcelPacker parcelPacker,
+            ShippingRateEngine rateEngine) {
+        if (noticeSink == null) {
+            throw new IllegalArgumentException("Notice sink cannot be null");
+        }
+        if (rateEngine == null) {
+            throw new IllegalArgumentException("Rate engine cannot be null");
+        }
+        this.noticeSink = noticeSink;
+        this.metrics = metrics;
+        this.parcelPacker = parcelPacker;
+        this.rateEngine = rateEngine;
+    }
+
     /**
-     * Calculates shipping cost based on total weight of shippable items
+     * Calculates shipping cost based on total weight of shippable items, as
+     * one package
      * 
      * @param shippableItems List of items that need to be shipped
-     * @return The shipping cost
+     * @return The shipping cost; 0 if there is nothing to ship
      */
     public double calculateShippingCost(List<Shippable> shippableItems) {
+        if (shippableItems.isEmpty()) {
+            return 0; // No package, so no base fee either
+        }
         double totalWeight = calculateTotalWeight(shippableItems);
-        return totalWeight * SHIPPING_RATE_PER_KG;
+        return rateEngine.quote(null, totalWeight);
+    }
+
+    /**
+     * Calculates shipping cost of a shipment to the default zone
+     * 
+     * @param shipment The shipment with one line per item
+     * @return The shipping cost
+     */
+    public double calculateShippingCost(Shipment shipment) {
+        return calculateShippingCost(shipment, null);
+    }
+
+    /**
+     * Calculates shipping cost based on total weight of a shipment, as the sum
+     * of its parcels' costs when a parcel packer is configured
+     * 
+     * @param shipment    The shipment with one line per item
+     * @param destination Where the shipment goes, or null for the default zone
+     * @return The shipping cost; 0 if there is nothing to ship
+     */
+    public double calculateShippingCost(Shipment shipment, String destination) {
+        return quoteShipment(shipment, destination).getCost();
+    }
+
+    /**
+     * Packs a shipment into parcels, when a parcel packer is configured, and
+     * prices them. Pass the quote on to {@link #processShipment(ShippingQuote)}
+     * so the notice shows exactly what was charged.
+     * 
+     * @param shipment    The shipment with one line per item
+     * @param destination Where the shipment goes, or null for the default zone
+     * @return The priced shipment; free if there is nothing to ship
+     */
+    public ShippingQuote quoteShipment(Shipment shipment, String destination) {
+        if (shipment.isEmpty()) {
+            return new ShippingQuote(destination, shipment, 0); // No package, so no base fee either
+        }
+        // One table for the whole shipment, even if a new one is installed meanwhile
+        ShippingRateTable rates = rateEngine.getTable();
+        int zone = rates.zoneOf(destination);
+        if (parcelPacker == null) {
+            return new ShippingQuote(destination, shipment, rates.quote(zone, shipment.getTotalWeight()));
+        }
+        List<Parcel> parcels = parcelPacker.pack(shipment);
+        double[] parcelCosts = new double[parcels.size()];
+        for (int i = 0; i < parcelCosts.length; i++) {
+            parcelCosts[i] = rates.quote(zone, parcels.get(i).getContents().getTotalWeight());
+        }
+        return new ShippingQuote(destination, shipment, parcels, parcelCosts);
     }
 
     /**
-     * Processes shipment and displays shipment notice
+     * Processes shipment and writes the shipment notice to the notice sink
      * 
      * @param shippableItems List of items to be shipped
      */
@@ -26,23 +155,130 @@ public class ShippingService {
             return; // No items to ship
         }
 
-        System.out.println("** Shipment notice **");
+        ShipmentEvent event = new ShipmentEvent();
+        event.begin();
+
+        ReceiptBuffer notice = ReceiptBuffer.acquire();
+        notice.line("** Shipment notice **");
 
         // Display each item with its weight
         for (Shippable item : shippableItems) {
-            double weightInKg = item.getWeight();
+            notice.line(formatUnitLine(item));
+        }
+
+        // Display total package weight
+        double totalWeight = calculateTotalWeight(shippableItems);
+        notice.format("Total package weight %.1fkg%n", totalWeight);
+        noticeSink.write(notice.text());
+        if (metrics != null) {
+            metrics.recordShipment(shippableItems.size());
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.lineCount = shippableItems.size();
+            event.unitCount = shippableItems.size();
+            event.totalWeight = totalWeight;
+            event.commit();
+        }
+    }
+
+    /**
+     * Processes shipment to the default zone, see
+     * {@link #processShipment(Shipment, String)}
+     * 
+     * @param shipment The shipment with one line per item
+     */
+    public void processShipment(Shipment shipment) {
+        processShipment(shipment, null);
+    }
+
+    /**
+     * Prices a shipment and processes it, see
+     * {@link #processShipment(ShippingQuote)}
+     * 
+     * @param shipment    The shipment with one line per item
+     * @param destination Where the shipment goes, or null for the default zone;
+     *                    prices the parcels listed in the notice
+     */
+    public void processShipment(Shipment shipment, String destination) {
+        if (shipment.isEmpty()) {
+            return; // No items to ship
+        }
+        processShipment(quoteShipment(shipment, destination));
+    }
+
+    /**
+     * Processes a priced shipment and displays shipment notice, one line per
+     * unit as in {@link #processShipment(List)}, followed by the quoted
+     * parcels and their prices
+     * 
+     * @param quote The shipment as it was priced
+     */
+    public void processShipment(ShippingQuote quote) {
+        Shipment shipment = quote.getShipment();
+        if (shipment.isEmpty()) {
+            return; // No items to ship
+        }
+
+        ShipmentEvent event = new ShipmentEvent();
+        event.begin();
+
+        ReceiptBuffer notice = ReceiptBuffer.acquire();
+        notice.line("** Shipment notice **");
+
+        // Format each item once, then repeat it for every unit
+        for (ShipmentLine line : shipment.getLines()) {
+            String unitLine = formatUnitLine(line.getItem());
+            for (int i = 0; i < line.getQuantity(); i++) {
+                notice.line(unitLine);
+            }
+        }
 
-            if (weightInKg < 1) {
-                double weightInGrams = weightInKg * 1000.0;// Convert kg to grams
-                System.out.printf("1x %s %.2fg%n", item.getName(), weightInGrams);
+        List<Parcel> parcels = quote.getParcels();
+        long number = 1;
+        for (int i = 0; i < parcels.size(); i++) {
+            Parcel parcel = parcels.get(i);
+            Shipment contents = parcel.getContents();
+            if (parcel.getCount() == 1) {
+                notice.format("Parcel %d: %d items %.1fkg, shipping %.0f%n", number,
+                        contents.getUnitCount(), contents.getTotalWeight(), quote.getParcelCost(i));
             } else {
-                System.out.printf("1x %s %.0fkg%n", item.getName(), weightInKg);
+                notice.format("Parcels %d-%d: %d items %.1fkg each, shipping %.0f each%n", number,
+                        number + parcel.getCount() - 1, contents.getUnitCount(), contents.getTotalWeight(),
+                        quote.getParcelCost(i));
             }
+            number += parcel.getCount();
+        }
+        notice.format("Total package weight %.1fkg%n", shipment.getTotalWeight());
+        noticeSink.write(notice.text());
+        if (metrics != null) {
+            metrics.recordShipment(shipment.getUnitCount());
         }
 
-        // Display total package weight
-        double totalWeight = calculateTotalWeight(shippableItems);
-        System.out.printf("Total package weight %.1fkg%n", totalWeight);
+        event.end();
+        if (event.shouldCommit()) {
+            event.lineCount = shipment.getLines().size();
+            event.unitCount = shipment.getUnitCount();
+            event.totalWeight = shipment.getTotalWeight();
+            event.commit();
+        }
+    }
+
+    /**
+     * Formats the notice line for one unit of an item
+     * 
+     * @param item The shipped item
+     * @return The notice line without line terminator
+     */
+    private String formatUnitLine(Shippable item) {
+        double weightInKg = item.getWeight();
+
+        if (weightInKg < 1) {
+            double weightInGrams = weightInKg * 1000.0;// Convert kg to grams
+            return String.format("1x %s %.2fg", item.getName(), weightInGrams);
+        }
+        return String.format("1x %s %.0fkg", item.getName(), weightInKg);
     }
 
     /**
@@ -0,0 +1,64 @@
+package service;
+
+/**
+ * Lap timer for one checkout. Each lap charges the time since the previous
+ * lap to a stage, so a stage that runs in several steps (e.g. shipping cost
+ * and shipment notice) adds up to one duration.
+ */
+final class StageTimer {
+    private static final CheckoutStage[] STAGES = CheckoutStage.values();
+
+    private final long start;
+    private final long[] stageNanos = new long[STAGES.length];
+    private int stagesRun; // Bit mask of the stages that were lapped
+    private long mark;
+
+    StageTimer() {
+        this.start = System.nanoTime();
+        this.mark = start;
+    }
+
+    /**
+     * Charges the time since the previous lap to a stage
+     * 
+     * @param stage The stage that just finished a step
+     */
+    void lap(CheckoutStage stage) {
+        long now = System.nanoTime();
+        stageNanos[stage.ordinal()] += now - mark;
+        stagesRun |= 1 << stage.ordinal();
+        mark = now;
+    }
+
+    /**
+     * Gets the time charged to a stage so far
+     * 
+     * @param stage The stage
+     * @return The stage duration in nanoseconds
+     */
+    long stageNanos(CheckoutStage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    /**
+     * Gets the time since the timer was started
+     * 
+     * @return The elapsed time in nanoseconds
+     */
+    long elapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Records every stage that ran into the metrics registry
+     * 
+     * @param metrics The registry to record into
+     */
+    void recordStages(CheckoutMetrics metrics) {
+        for (CheckoutStage stage : STAGES) {
+            if ((stagesRun & (1 << stage.ordinal())) != 0) {
+                metrics.recordStage(stage, stageNanos[stage.ordinal()]);
+            }
+        }
+    }
+}
\ No newline at end of file